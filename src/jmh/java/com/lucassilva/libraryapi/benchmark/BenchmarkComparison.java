@@ -0,0 +1,80 @@
+package com.lucassilva.libraryapi.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compara dois resultados JSON do JMH (baseline e atual) e falha quando algum
+ * benchmark piora além do limite percentual informado.
+ * 
+ * Uso: BenchmarkComparison baseline.json atual.json [limite em %]
+ */
+public class BenchmarkComparison {
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2) {
+			System.err.println("Uso: BenchmarkComparison <baseline.json> <atual.json> [limite %]");
+			System.exit(2);
+		}
+		
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+		
+		Map<String, JsonNode> baseline = read(new File(args[0]));
+		Map<String, JsonNode> current = read(new File(args[1]));
+		
+		int regressions = 0;
+		for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+			JsonNode before = baseline.get(entry.getKey());
+			JsonNode metric = entry.getValue().get("primaryMetric");
+			
+			if(before == null) {
+				System.out.printf("%-90s %14.3f %-8s (novo)%n", entry.getKey(), metric.get("score").asDouble(), metric.get("scoreUnit").asText());
+				continue;
+			}
+			
+			double oldScore = before.get("primaryMetric").get("score").asDouble();
+			double newScore = metric.get("score").asDouble();
+			double change = (newScore - oldScore) / oldScore * 100;
+			
+			// em modos de vazão (thrpt) maior é melhor; nos demais, menor é melhor
+			boolean higherIsBetter = "thrpt".equals(entry.getValue().get("mode").asText());
+			double worsening = higherIsBetter ? -change : change;
+			boolean regression = worsening > threshold;
+			if(regression) {
+				regressions++;
+			}
+			
+			System.out.printf("%-90s %14.3f -> %14.3f %-8s %+7.1f%%%s%n",
+					entry.getKey(), oldScore, newScore, metric.get("scoreUnit").asText(), change, regression ? "  REGRESSÃO" : "");
+		}
+		
+		if(regressions > 0) {
+			System.out.printf("%d benchmark(s) pioraram mais de %.1f%%%n", regressions, threshold);
+			System.exit(1);
+		}
+	}
+	
+	private static Map<String, JsonNode> read(File file) throws IOException {
+		Map<String, JsonNode> results = new LinkedHashMap<>();
+		for (JsonNode result : new ObjectMapper().readTree(file)) {
+			StringBuilder key = new StringBuilder(result.get("benchmark").asText());
+			JsonNode params = result.get("params");
+			if(params != null) {
+				Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+				while (fields.hasNext()) {
+					Map.Entry<String, JsonNode> param = fields.next();
+					key.append(':').append(param.getKey()).append('=').append(param.getValue().asText());
+				}
+			}
+			results.put(key.toString(), result);
+		}
+		return results;
+	}
+	
+}
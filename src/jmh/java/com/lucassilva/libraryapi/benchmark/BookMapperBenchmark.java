@@ -0,0 +1,69 @@
+package com.lucassilva.libraryapi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lucassilva.libraryapi.api.dto.BookDTO;
+import com.lucassilva.libraryapi.api.mapper.BookMapper;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+/**
+ * Compara o {@link BookMapper} com o ModelMapper usado anteriormente pelo BookController.
+ * Para medir alocação: mvn -Pjmh verify -Djmh.args="BookMapperBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMapperBenchmark {
+
+	ModelMapper modelMapper;
+	
+	BookMapper bookMapper;
+	
+	Book book;
+	
+	BookDTO dto;
+	
+	@Setup
+	public void setup() {
+		modelMapper = new ModelMapper();
+		bookMapper = new BookMapper();
+		book = Book.builder().id(1L).title("Apocalipse Z").author("Manel Loureiro").isbn("9788576864219").build();
+		dto = BookDTO.builder().id(1L).title("Apocalipse Z").author("Manel Loureiro").isbn("9788576864219").build();
+	}
+	
+	@Benchmark
+	public BookDTO modelMapperToDto() {
+		return modelMapper.map(book, BookDTO.class);
+	}
+	
+	@Benchmark
+	public BookDTO bookMapperToDto() {
+		return bookMapper.toDto(book);
+	}
+	
+	@Benchmark
+	public Book modelMapperToEntity() {
+		return modelMapper.map(dto, Book.class);
+	}
+	
+	@Benchmark
+	public Book bookMapperToEntity() {
+		return bookMapper.toEntity(dto);
+	}
+	
+}
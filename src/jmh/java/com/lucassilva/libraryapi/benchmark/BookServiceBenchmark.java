@@ -0,0 +1,87 @@
+package com.lucassilva.libraryapi.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.lucassilva.libraryapi.LibraryApiApplication;
+import com.lucassilva.libraryapi.api.service.BookService;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+/**
+ * BookServiceImpl.save/getById contra o H2 embarcado, com a aplicação
+ * inicializada sem a camada web. O parâmetro cacheType permite medir o
+ * getById com e sem o cache de livros.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookServiceBenchmark {
+
+	@Param({ "caffeine", "none" })
+	String cacheType;
+	
+	ConfigurableApplicationContext context;
+	
+	BookService bookService;
+	
+	AtomicLong isbnSequence = new AtomicLong();
+	
+	Long existingId;
+	
+	@Setup
+	public void setup() {
+		context = new SpringApplicationBuilder(LibraryApiApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(
+						"--spring.cache.type=" + cacheType,
+						"--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_ON_EXIT=FALSE",
+						"--spring.main.banner-mode=off",
+						"--logging.level.root=warn");
+		bookService = context.getBean(BookService.class);
+		existingId = bookService.save(newBook()).getId();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public Book save() {
+		return bookService.save(newBook());
+	}
+	
+	@Benchmark
+	public Optional<Book> getById() {
+		return bookService.getById(existingId);
+	}
+	
+	private Book newBook() {
+		return Book.builder()
+				.title("Apocalipse Z")
+				.author("Manel Loureiro")
+				.isbn(String.valueOf(isbnSequence.incrementAndGet()))
+				.build();
+	}
+	
+}
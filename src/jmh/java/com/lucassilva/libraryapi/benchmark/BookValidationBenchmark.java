@@ -0,0 +1,67 @@
+package com.lucassilva.libraryapi.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lucassilva.libraryapi.api.dto.BookDTO;
+
+/**
+ * Custo da Bean Validation do BookDTO, executada em todo POST /api/books.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookValidationBenchmark {
+
+	ValidatorFactory validatorFactory;
+	
+	Validator validator;
+	
+	BookDTO validBook;
+	
+	BookDTO invalidBook;
+	
+	@Setup
+	public void setup() {
+		validatorFactory = Validation.buildDefaultValidatorFactory();
+		validator = validatorFactory.getValidator();
+		validBook = BookDTO.builder().title("Apocalipse Z").author("Manel Loureiro").isbn("9788576864219").build();
+		invalidBook = new BookDTO();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		validatorFactory.close();
+	}
+	
+	@Benchmark
+	public Set<ConstraintViolation<BookDTO>> validBook() {
+		return validator.validate(validBook);
+	}
+	
+	@Benchmark
+	public Set<ConstraintViolation<BookDTO>> invalidBook() {
+		return validator.validate(invalidBook);
+	}
+	
+}
@@ -0,0 +1,74 @@
+package com.lucassilva.libraryapi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.lucassilva.libraryapi.api.dto.BookDTO;
+import com.lucassilva.libraryapi.api.exception.ApiErros;
+import com.lucassilva.libraryapi.exception.BusinessException;
+
+/**
+ * Serialização Jackson das respostas da API: BookDTO e ApiErros.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+	ObjectWriter bookWriter;
+	
+	ObjectReader bookReader;
+	
+	ObjectWriter errorsWriter;
+	
+	BookDTO book;
+	
+	byte[] bookJson;
+	
+	ApiErros errors;
+	
+	@Setup
+	public void setup() throws JsonProcessingException {
+		ObjectMapper objectMapper = new ObjectMapper();
+		bookWriter = objectMapper.writerFor(BookDTO.class);
+		bookReader = objectMapper.readerFor(BookDTO.class);
+		errorsWriter = objectMapper.writerFor(ApiErros.class);
+		
+		book = BookDTO.builder().id(1L).title("Apocalipse Z").author("Manel Loureiro").isbn("9788576864219").build();
+		bookJson = bookWriter.writeValueAsBytes(book);
+		errors = new ApiErros(new BusinessException("Isbn já cadastrado."));
+	}
+	
+	@Benchmark
+	public byte[] writeBook() throws JsonProcessingException {
+		return bookWriter.writeValueAsBytes(book);
+	}
+	
+	@Benchmark
+	public BookDTO readBook() throws Exception {
+		return bookReader.readValue(bookJson);
+	}
+	
+	@Benchmark
+	public byte[] writeApiErros() throws JsonProcessingException {
+		return errorsWriter.writeValueAsBytes(errors);
+	}
+	
+}
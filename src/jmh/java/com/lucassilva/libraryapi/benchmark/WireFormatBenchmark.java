@@ -0,0 +1,113 @@
+package com.lucassilva.libraryapi.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.lucassilva.libraryapi.api.dto.BookDTO;
+import com.lucassilva.libraryapi.api.exception.ApiErros;
+import com.lucassilva.libraryapi.exception.BusinessException;
+
+/**
+ * JSON x CBOR para BookDTO, listas de 100 BookDTO e ApiErros: tempo de
+ * codificação e decodificação por formato. O tamanho de cada payload é
+ * impresso na preparação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+	@Param({ "json", "cbor" })
+	String format;
+	
+	ObjectWriter bookWriter;
+	
+	ObjectReader bookReader;
+	
+	ObjectWriter listWriter;
+	
+	ObjectReader listReader;
+	
+	ObjectWriter errorsWriter;
+	
+	BookDTO book;
+	
+	List<BookDTO> books;
+	
+	ApiErros errors;
+	
+	byte[] bookBytes;
+	
+	byte[] listBytes;
+	
+	@Setup
+	public void setup() throws IOException {
+		ObjectMapper objectMapper = "cbor".equals(format) ? new ObjectMapper(new CBORFactory()) : new ObjectMapper();
+		TypeReference<List<BookDTO>> listType = new TypeReference<List<BookDTO>>() {};
+		bookWriter = objectMapper.writerFor(BookDTO.class);
+		bookReader = objectMapper.readerFor(BookDTO.class);
+		listWriter = objectMapper.writerFor(listType);
+		listReader = objectMapper.readerFor(listType);
+		errorsWriter = objectMapper.writerFor(ApiErros.class);
+		
+		book = BookDTO.builder().id(1L).title("Apocalipse Z").author("Manel Loureiro").isbn("9788576864219").build();
+		books = IntStream.range(0, 100)
+				.mapToObj( i -> BookDTO.builder().id(1000L + i).title("Título " + i).author("Autor " + i).isbn("978857686" + (4000 + i)).build() )
+				.collect(Collectors.toList());
+		errors = new ApiErros(new BusinessException("Isbn já cadastrado."));
+		
+		bookBytes = bookWriter.writeValueAsBytes(book);
+		listBytes = listWriter.writeValueAsBytes(books);
+		System.out.printf("%n%s: BookDTO %d bytes, lista de 100 %d bytes, ApiErros %d bytes%n",
+				format, bookBytes.length, listBytes.length, errorsWriter.writeValueAsBytes(errors).length);
+	}
+	
+	@Benchmark
+	public byte[] writeBook() throws IOException {
+		return bookWriter.writeValueAsBytes(book);
+	}
+	
+	@Benchmark
+	public BookDTO readBook() throws IOException {
+		return bookReader.readValue(bookBytes);
+	}
+	
+	@Benchmark
+	public byte[] writeBookList() throws IOException {
+		return listWriter.writeValueAsBytes(books);
+	}
+	
+	@Benchmark
+	public List<BookDTO> readBookList() throws IOException {
+		return listReader.readValue(listBytes);
+	}
+	
+	@Benchmark
+	public byte[] writeApiErros() throws IOException {
+		return errorsWriter.writeValueAsBytes(errors);
+	}
+	
+}
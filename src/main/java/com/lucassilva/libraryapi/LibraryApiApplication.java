@@ -1,16 +1,21 @@
 package com.lucassilva.libraryapi;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.lucassilva.libraryapi.api.mapper.BookMapper;
 
 @SpringBootApplication
+@EnableCaching
+@EnableScheduling
 public class LibraryApiApplication {
 
 	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
+	public BookMapper bookMapper() {
+		return new BookMapper();
 	}
 	
 	public static void main(String[] args) {
@@ -0,0 +1,20 @@
+package com.lucassilva.libraryapi.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookBatchDTO {
+
+	private List<BookDTO> books;
+	
+	private List<Long> missingIds;
+	
+}
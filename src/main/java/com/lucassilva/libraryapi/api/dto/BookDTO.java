@@ -1,6 +1,6 @@
 package com.lucassilva.libraryapi.api.dto;
 
-import javax.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotEmpty;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -0,0 +1,32 @@
+package com.lucassilva.libraryapi.api.dto;
+
+import java.time.Instant;
+
+import com.lucassilva.libraryapi.model.entity.BookEvent.Type;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookEventDTO {
+
+	private Long offset;
+	
+	private Type type;
+	
+	private Long bookId;
+	
+	private String title;
+	
+	private String author;
+	
+	private String isbn;
+	
+	private Instant occurredAt;
+	
+}
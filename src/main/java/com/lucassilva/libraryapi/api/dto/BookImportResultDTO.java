@@ -0,0 +1,30 @@
+package com.lucassilva.libraryapi.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookImportResultDTO {
+
+	public enum Status {
+		CREATED, DUPLICATED, INVALID
+	}
+
+	private int index;
+	
+	private Long id;
+	
+	private String isbn;
+	
+	private Status status;
+	
+	private List<String> errors;
+	
+}
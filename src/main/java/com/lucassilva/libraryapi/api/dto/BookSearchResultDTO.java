@@ -0,0 +1,22 @@
+package com.lucassilva.libraryapi.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookSearchResultDTO {
+
+	private List<BookDTO> books;
+	
+	private String after;
+	
+	private boolean hasMore;
+	
+}
@@ -0,0 +1,26 @@
+package com.lucassilva.libraryapi.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Corpo do PUT de um livro: só título e autor podem ser substituídos, o isbn
+ * não é alterado.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookUpdateDTO {
+
+	@NotEmpty
+	private String title;
+	
+	@NotEmpty
+	private String author;
+	
+}
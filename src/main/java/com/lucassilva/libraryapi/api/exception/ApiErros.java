@@ -22,6 +22,10 @@ public class ApiErros {
 		this.errors = Arrays.asList(businessException.getMessage());
 	}
 	
+	public ApiErros(String message) {
+		this.errors = Arrays.asList(message);
+	}
+	
 	public List<String> getErrors() {
 		return errors;
 	}
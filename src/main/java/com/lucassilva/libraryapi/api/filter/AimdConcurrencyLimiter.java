@@ -0,0 +1,89 @@
+package com.lucassilva.libraryapi.api.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite adaptativo de requisições simultâneas (AIMD). Cada resposta mais
+ * lenta que latencyThreshold reduz o limite multiplicando-o por backoffRatio;
+ * cada resposta rápida com o limite ao menos meio ocupado o aumenta em 1.
+ * Assim o limite acompanha o que o servidor e o banco conseguem atender
+ * antes que a fila do pool de conexões faça a latência explodir.
+ * Respostas de requisições admitidas antes da última redução não reduzem o
+ * limite de novo: elas refletem o limite anterior, e reduzir por cada uma
+ * levaria o limite ao mínimo após um único pico.
+ */
+public class AimdConcurrencyLimiter {
+
+	private final int minLimit;
+	
+	private final int maxLimit;
+	
+	private final long latencyThresholdNanos;
+	
+	private final double backoffRatio;
+	
+	private final AtomicInteger inflight = new AtomicInteger();
+	
+	private volatile double limit;
+	
+	private boolean decreased;
+	
+	private long lastDecreaseNanos;
+	
+	public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos, double backoffRatio) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.latencyThresholdNanos = latencyThresholdNanos;
+		this.backoffRatio = backoffRatio;
+		this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+	}
+	
+	public boolean tryAcquire() {
+		while (true) {
+			int current = inflight.get();
+			if(current >= (int) limit) {
+				return false;
+			}
+			if(inflight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Libera a vaga e ajusta o limite pela latência da requisição.
+	 */
+	public void release(long startNanos, long endNanos) {
+		int inflightBeforeRelease = inflight.getAndDecrement();
+		adjust(startNanos, endNanos, inflightBeforeRelease);
+	}
+	
+	/**
+	 * Libera a vaga sem ajustar o limite, para requisições cuja duração não
+	 * mede a capacidade do servidor (respostas assíncronas de longa duração).
+	 */
+	public void release() {
+		inflight.decrementAndGet();
+	}
+	
+	public int getLimit() {
+		return (int) limit;
+	}
+	
+	public int getInflight() {
+		return inflight.get();
+	}
+	
+	private synchronized void adjust(long startNanos, long endNanos, int inflightBeforeRelease) {
+		if(endNanos - startNanos > latencyThresholdNanos) {
+			if(!decreased || startNanos - lastDecreaseNanos > 0) {
+				limit = Math.max(minLimit, limit * backoffRatio);
+				decreased = true;
+				lastDecreaseNanos = endNanos;
+			}
+		} else if(inflightBeforeRelease * 2 >= limit) {
+			limit = Math.min(maxLimit, limit + 1);
+		}
+	}
+	
+}
@@ -0,0 +1,84 @@
+package com.lucassilva.libraryapi.api.filter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Recusa com 503 as requisições acima do limite adaptativo de simultaneidade,
+ * descartando o excesso logo na entrada em vez de deixá-lo esperar por uma
+ * conexão até estourar o tempo. Respostas assíncronas (como o feed SSE de
+ * eventos) liberam a vaga quando o processamento síncrono termina, sem
+ * influenciar o limite. Os caminhos de longa duração (importação, exportação
+ * e sincronização) ficam de fora: a latência deles derrubaria o limite e as
+ * vagas que ocupam por minutos faltariam às consultas comuns.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	private final AimdConcurrencyLimiter limiter;
+	
+	private final LongSupplier clock;
+	
+	private final Set<String> unlimitedPaths;
+	
+	private final ObjectMapper objectMapper;
+	
+	private final Counter admitted;
+	
+	private final Counter rejected;
+	
+	public ConcurrencyLimitFilter(AimdConcurrencyLimiter limiter, LongSupplier clock, Set<String> unlimitedPaths,
+			ObjectMapper objectMapper, MeterRegistry registry) {
+		this.limiter = limiter;
+		this.clock = clock;
+		this.unlimitedPaths = unlimitedPaths;
+		this.objectMapper = objectMapper;
+		this.admitted = registry.counter(RateLimitFilter.REQUESTS_METRIC, "limiter", "concurrency", "outcome", "admitted");
+		this.rejected = registry.counter(RateLimitFilter.REQUESTS_METRIC, "limiter", "concurrency", "outcome", "rejected");
+		Gauge.builder("library.books.concurrency.limit", limiter, AimdConcurrencyLimiter::getLimit).register(registry);
+		Gauge.builder("library.books.concurrency.inflight", limiter, AimdConcurrencyLimiter::getInflight).register(registry);
+	}
+	
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return unlimitedPaths.contains(request.getRequestURI().substring(request.getContextPath().length()));
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		if(!limiter.tryAcquire()) {
+			rejected.increment();
+			LimitRejections.reject(response, objectMapper, HttpStatus.SERVICE_UNAVAILABLE, 1,
+					"Servidor sobrecarregado. Tente novamente em instantes.");
+			return;
+		}
+		
+		admitted.increment();
+		long start = clock.getAsLong();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			if(request.isAsyncStarted()) {
+				limiter.release();
+			} else {
+				limiter.release(start, clock.getAsLong());
+			}
+		}
+	}
+	
+}
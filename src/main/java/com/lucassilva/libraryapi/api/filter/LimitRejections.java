@@ -0,0 +1,31 @@
+package com.lucassilva.libraryapi.api.filter;
+
+import java.io.IOException;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucassilva.libraryapi.api.exception.ApiErros;
+
+/**
+ * Resposta das requisições recusadas pelos limites, no mesmo formato de erro
+ * dos controllers e com Retry-After.
+ */
+final class LimitRejections {
+
+	private LimitRejections() {
+	}
+	
+	static void reject(HttpServletResponse response, ObjectMapper objectMapper, HttpStatus status, long retryAfterSeconds, String message) throws IOException {
+		response.setStatus(status.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfterSeconds)));
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setCharacterEncoding("UTF-8");
+		objectMapper.writeValue(response.getOutputStream(), new ApiErros(message));
+	}
+	
+}
@@ -0,0 +1,93 @@
+package com.lucassilva.libraryapi.api.filter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limita a taxa de requisições de cada cliente com um balde de fichas,
+ * respondendo 429 quando o balde esvazia. O cliente é identificado pelo
+ * usuário autenticado ou, sem autenticação, pelo endereço de origem; atrás de
+ * um proxy, o endereço só é o do cliente com server.forward-headers-strategy
+ * configurado para os cabeçalhos X-Forwarded-* do proxy. Os baldes ociosos
+ * são descartados, então a memória acompanha os clientes ativos.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+	static final String REQUESTS_METRIC = "library.books.requests";
+	
+	private final Cache<String, TokenBucket> buckets;
+	
+	private final long capacity;
+	
+	private final double tokensPerSecond;
+	
+	private final LongSupplier clock;
+	
+	private final ObjectMapper objectMapper;
+	
+	private final Counter admitted;
+	
+	private final Counter rejected;
+	
+	public RateLimitFilter(long capacity, double tokensPerSecond, long maxClients, Duration idleExpiration,
+			LongSupplier clock, ObjectMapper objectMapper, MeterRegistry registry) {
+		this.capacity = capacity;
+		this.tokensPerSecond = tokensPerSecond;
+		this.clock = clock;
+		this.objectMapper = objectMapper;
+		this.buckets = Caffeine.newBuilder()
+				.maximumSize(maxClients)
+				.expireAfterAccess(idleExpiration)
+				.build();
+		this.admitted = registry.counter(REQUESTS_METRIC, "limiter", "rate", "outcome", "admitted");
+		this.rejected = registry.counter(REQUESTS_METRIC, "limiter", "rate", "outcome", "rejected");
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		long now = clock.getAsLong();
+		TokenBucket bucket = buckets.get(clientKey(request), key -> new TokenBucket(capacity, tokensPerSecond, now));
+		
+		long waitNanos = bucket.tryConsume(now);
+		if(waitNanos > 0) {
+			rejected.increment();
+			LimitRejections.reject(response, objectMapper, HttpStatus.TOO_MANY_REQUESTS,
+					TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1),
+					"Limite de requisições excedido. Tente novamente em instantes.");
+			return;
+		}
+		
+		admitted.increment();
+		filterChain.doFilter(request, response);
+	}
+	
+	/**
+	 * Chave do cliente da requisição: o usuário autenticado ou, sem ele, o IP.
+	 * Nada que o próprio cliente envia sem autenticação entra na chave, para
+	 * que ele não obtenha um balde novo a cada requisição.
+	 */
+	public static String clientKey(HttpServletRequest request) {
+		Principal principal = request.getUserPrincipal();
+		return principal != null ? "user:" + principal.getName() : "ip:" + request.getRemoteAddr();
+	}
+	
+}
@@ -0,0 +1,41 @@
+package com.lucassilva.libraryapi.api.filter;
+
+/**
+ * Balde de fichas de um cliente: começa cheio, cada requisição consome uma
+ * ficha e as fichas são repostas continuamente até a capacidade.
+ */
+class TokenBucket {
+
+	private final double capacity;
+	
+	private final double tokensPerNano;
+	
+	private double tokens;
+	
+	private long lastRefillNanos;
+	
+	TokenBucket(long capacity, double tokensPerSecond, long nowNanos) {
+		this.capacity = capacity;
+		this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+		this.tokens = capacity;
+		this.lastRefillNanos = nowNanos;
+	}
+	
+	/**
+	 * Consome uma ficha, se houver. Retorna 0 quando consumiu, ou quantos
+	 * nanossegundos faltam para a próxima ficha.
+	 */
+	synchronized long tryConsume(long nowNanos) {
+		if(nowNanos > lastRefillNanos) {
+			tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) * tokensPerNano);
+			lastRefillNanos = nowNanos;
+		}
+		
+		if(tokens >= 1) {
+			tokens -= 1;
+			return 0;
+		}
+		return (long) Math.ceil((1 - tokens) / tokensPerNano);
+	}
+	
+}
@@ -0,0 +1,56 @@
+package com.lucassilva.libraryapi.api.mapper;
+
+import com.lucassilva.libraryapi.api.dto.BookDTO;
+import com.lucassilva.libraryapi.api.dto.BookEventDTO;
+import com.lucassilva.libraryapi.model.entity.Book;
+import com.lucassilva.libraryapi.model.entity.BookEvent;
+
+/**
+ * Conversão entre {@link Book} e {@link BookDTO} escrita à mão, sem reflexão:
+ * cada conversão aloca apenas o objeto de destino.
+ */
+public class BookMapper {
+
+	public BookDTO toDto(Book book) {
+		if(book == null) {
+			return null;
+		}
+		
+		BookDTO dto = new BookDTO();
+		dto.setId(book.getId());
+		dto.setTitle(book.getTitle());
+		dto.setAuthor(book.getAuthor());
+		dto.setIsbn(book.getIsbn());
+		return dto;
+	}
+	
+	public Book toEntity(BookDTO dto) {
+		if(dto == null) {
+			return null;
+		}
+		
+		Book book = new Book();
+		book.setId(dto.getId());
+		book.setTitle(dto.getTitle());
+		book.setAuthor(dto.getAuthor());
+		book.setIsbn(dto.getIsbn());
+		return book;
+	}
+	
+	public BookEventDTO toDto(BookEvent event) {
+		if(event == null) {
+			return null;
+		}
+		
+		BookEventDTO dto = new BookEventDTO();
+		dto.setOffset(event.getOffset());
+		dto.setType(event.getType());
+		dto.setBookId(event.getBookId());
+		dto.setTitle(event.getTitle());
+		dto.setAuthor(event.getAuthor());
+		dto.setIsbn(event.getIsbn());
+		dto.setOccurredAt(event.getOccurredAt());
+		return dto;
+	}
+	
+}
@@ -0,0 +1,25 @@
+package com.lucassilva.libraryapi.api.repository;
+
+import java.util.List;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import com.lucassilva.libraryapi.model.entity.BookEvent;
+
+public interface BookEventRepository extends JpaRepository<BookEvent, Long> {
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select e from BookEvent e where e.offset is null order by e.id")
+	List<BookEvent> findUnpublished(Pageable pageable);
+
+	@Query("select coalesce(max(e.offset), 0) from BookEvent e")
+	long findLastOffset();
+
+	List<BookEvent> findByOffsetGreaterThanOrderByOffset(Long offset, Pageable pageable);
+
+}
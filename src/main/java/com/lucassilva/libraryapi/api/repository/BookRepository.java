@@ -1,11 +1,87 @@
 package com.lucassilva.libraryapi.api.repository;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.lucassilva.libraryapi.model.entity.Book;
 
-public interface BookRepository extends JpaRepository<Book, Long>{
+public interface BookRepository extends JpaRepository<Book, Long>, BookSearchRepository {
+
+	@Query("select b.id from Book b where b.isbn in :isbns")
+	List<Long> findIdsByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+	@Query("select b.isbn from Book b where b.isbn in :isbns")
+	Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+	@Query("select b from Book b where (b.lastModified > :since or (b.lastModified = :since and b.id > :afterId)) "
+			+ "and b.lastModified <= :until order by b.lastModified, b.id")
+	List<Book> findModifiedSince(@Param("since") Instant since, @Param("afterId") Long afterId, @Param("until") Instant until, Pageable pageable);
+
+	/**
+	 * Lê o livro direto da base, sem passar pelo cache de segundo nível. Após
+	 * um update ou delete em massa o Hibernate só invalida a região de Book no
+	 * fim da transação, então um findById na mesma transação pode retornar a
+	 * versão anterior.
+	 */
+	@Query("select b from Book b where b.id = :id")
+	Optional<Book> findCurrentById(@Param("id") Long id);
+
+	/**
+	 * Remove o livro em um único comando, sem carregá-lo antes; retorna o
+	 * número de livros removidos (0 quando o id não existe).
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("delete from Book b where b.id = :id")
+	int deleteBookById(@Param("id") Long id);
+
+	/**
+	 * Substitui título e autor em um único comando, incrementando a versão e a
+	 * data de alteração como o Hibernate faria. Sem anyVersion, só atualiza se
+	 * a versão atual estiver entre as informadas. Retorna o número de livros
+	 * atualizados.
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Book b set b.title = :title, b.author = :author, b.version = b.version + 1, b.lastModified = :now "
+			+ "where b.id = :id and (:anyVersion = true or b.version in :versions)")
+	int updateContent(@Param("id") Long id, @Param("title") String title, @Param("author") String author, @Param("now") Instant now,
+			@Param("anyVersion") boolean anyVersion, @Param("versions") Collection<Long> versions);
+
+	/**
+	 * Como updateContent, mas mantendo os campos informados como null.
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Book b set b.title = coalesce(:title, b.title), b.author = coalesce(:author, b.author), "
+			+ "b.version = b.version + 1, b.lastModified = :now "
+			+ "where b.id = :id and (:anyVersion = true or b.version in :versions)")
+	int patchContent(@Param("id") Long id, @Param("title") String title, @Param("author") String author, @Param("now") Instant now,
+			@Param("anyVersion") boolean anyVersion, @Param("versions") Collection<Long> versions);
+
+	@QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true") })
+	@Query("select b from Book b order by b.id")
+	Stream<Book> streamAll();
+
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+	@Query("select b.isbn from Book b")
+	Stream<String> streamAllIsbns();
 
-	boolean existsByIsbn(String isbn);
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+	@Query("select b.id, b.isbn from Book b where b.isbn is not null")
+	Stream<Object[]> streamAllIdsAndIsbns();
 
 }
@@ -0,0 +1,22 @@
+package com.lucassilva.libraryapi.api.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import com.lucassilva.libraryapi.model.entity.Book;
+
+/**
+ * Buscas de livros por prefixo de título, prefixo de autor e isbn, todos
+ * opcionais (null não filtra).
+ */
+public interface BookSearchRepository {
+
+	Page<Book> search(String title, String author, String isbn, Pageable pageable);
+
+	/**
+	 * Livros com id maior que afterId, sem contar o total de registros.
+	 */
+	Slice<Book> searchAfter(Long afterId, String title, String author, String isbn, Pageable pageable);
+
+}
@@ -0,0 +1,103 @@
+package com.lucassilva.libraryapi.api.repository;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.lucassilva.libraryapi.model.entity.Book;
+
+/**
+ * Monta o where só com os filtros informados, de modo que cada combinação de
+ * filtros tem o seu próprio SQL e o seu próprio plano no banco, capaz de usar
+ * o índice de título ou de autor. Um único comando com "(:title is null or
+ * ...)" para todas as combinações vira, com prepared statements no servidor,
+ * um plano genérico que percorre a tabela.
+ */
+class BookSearchRepositoryImpl implements BookSearchRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Page<Book> search(String title, String author, String isbn, Pageable pageable) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Book> query = builder.createQuery(Book.class);
+		Root<Book> book = query.from(Book.class);
+		query.where(filter(builder, book, null, title, author, isbn));
+		query.orderBy(QueryUtils.toOrders(pageable.getSort(), book, builder));
+
+		TypedQuery<Book> typedQuery = cacheable(entityManager.createQuery(query));
+		if(pageable.isPaged()) {
+			typedQuery.setFirstResult((int) pageable.getOffset());
+			typedQuery.setMaxResults(pageable.getPageSize());
+		}
+
+		return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(title, author, isbn));
+	}
+
+	@Override
+	public Slice<Book> searchAfter(Long afterId, String title, String author, String isbn, Pageable pageable) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Book> query = builder.createQuery(Book.class);
+		Root<Book> book = query.from(Book.class);
+		query.where(filter(builder, book, afterId, title, author, isbn));
+		query.orderBy(QueryUtils.toOrders(pageable.getSort(), book, builder));
+
+		// um livro a mais que o tamanho da página indica se há próxima página
+		List<Book> books = cacheable(entityManager.createQuery(query))
+				.setFirstResult((int) pageable.getOffset())
+				.setMaxResults(pageable.getPageSize() + 1)
+				.getResultList();
+
+		boolean hasNext = books.size() > pageable.getPageSize();
+		return new SliceImpl<>(hasNext ? books.subList(0, pageable.getPageSize()) : books, pageable, hasNext);
+	}
+
+	private long count(String title, String author, String isbn) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = builder.createQuery(Long.class);
+		Root<Book> book = query.from(Book.class);
+		query.select(builder.count(book)).where(filter(builder, book, null, title, author, isbn));
+
+		return cacheable(entityManager.createQuery(query)).getSingleResult();
+	}
+
+	private Predicate[] filter(CriteriaBuilder builder, Root<Book> book, Long afterId, String title, String author, String isbn) {
+		List<Predicate> predicates = new ArrayList<>();
+		if(afterId != null) {
+			predicates.add(builder.greaterThan(book.get("id"), afterId));
+		}
+		if(title != null) {
+			predicates.add(builder.like(book.get("title"), LikePatterns.startsWith(title), LikePatterns.ESCAPE));
+		}
+		if(author != null) {
+			predicates.add(builder.like(book.get("author"), LikePatterns.startsWith(author), LikePatterns.ESCAPE));
+		}
+		if(isbn != null) {
+			predicates.add(builder.equal(book.get("isbn"), isbn));
+		}
+		return predicates.toArray(new Predicate[0]);
+	}
+
+	private <T> TypedQuery<T> cacheable(TypedQuery<T> query) {
+		return query.setHint(HINT_CACHEABLE, true).setHint(HINT_CACHE_REGION, Book.QUERY_CACHE_REGION);
+	}
+
+}
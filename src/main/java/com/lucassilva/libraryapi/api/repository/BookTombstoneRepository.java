@@ -0,0 +1,28 @@
+package com.lucassilva.libraryapi.api.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.lucassilva.libraryapi.model.entity.BookTombstone;
+
+public interface BookTombstoneRepository extends JpaRepository<BookTombstone, Long> {
+
+	@Query("select t from BookTombstone t where (t.deletedAt > :since or (t.deletedAt = :since and t.bookId > :afterId)) "
+			+ "and t.deletedAt <= :until order by t.deletedAt, t.bookId")
+	List<BookTombstone> findDeletedSince(@Param("since") Instant since, @Param("afterId") Long afterId, @Param("until") Instant until, Pageable pageable);
+
+	/**
+	 * Grava a remoção do livro, copiando o isbn da própria linha do livro, em
+	 * um único insert ... select. Retorna 0 quando o livro não existe.
+	 */
+	@Modifying(flushAutomatically = true)
+	@Query("insert into BookTombstone (bookId, isbn, deletedAt) select b.id, b.isbn, :deletedAt from Book b where b.id = :bookId")
+	int insertFromBook(@Param("bookId") Long bookId, @Param("deletedAt") Instant deletedAt);
+
+}
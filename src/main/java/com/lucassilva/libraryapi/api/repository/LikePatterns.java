@@ -0,0 +1,37 @@
+package com.lucassilva.libraryapi.api.repository;
+
+/**
+ * Padrões de LIKE montados a partir do texto informado pelo cliente, que é
+ * procurado literalmente: % e _ no texto não funcionam como curingas.
+ */
+public final class LikePatterns {
+
+	/**
+	 * Caractere de escape dos padrões. É também o escape padrão do LIKE no H2
+	 * e no PostgreSQL, então vale mesmo sem a cláusula ESCAPE.
+	 */
+	public static final char ESCAPE = '\\';
+
+	private LikePatterns() {
+	}
+
+	/**
+	 * Padrão dos valores que começam com prefix.
+	 */
+	public static String startsWith(String prefix) {
+		return escape(prefix) + "%";
+	}
+
+	private static String escape(String text) {
+		StringBuilder escaped = new StringBuilder(text.length() + 8);
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if(c == ESCAPE || c == '%' || c == '_') {
+				escaped.append(ESCAPE);
+			}
+			escaped.append(c);
+		}
+		return escaped.toString();
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.lucassilva.libraryapi.api.repository;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+
+import com.lucassilva.libraryapi.model.entity.Book;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Repositório R2DBC de livros. É implementado sobre o {@link R2dbcEntityTemplate}
+ * em vez de uma interface do Spring Data porque a entidade {@link Book} é anotada
+ * com JPA, e a varredura de repositórios do JPA recusaria uma interface reativa.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveBookRepository {
+
+	private R2dbcEntityTemplate template;
+	
+	public ReactiveBookRepository(R2dbcEntityTemplate template) {
+		this.template = template;
+	}
+	
+	public Mono<Book> findById(Long id) {
+		return template.selectOne(Query.query(Criteria.where("id").is(id)), Book.class);
+	}
+	
+	public Mono<Book> insert(Book book) {
+		return template.insert(book);
+	}
+	
+	public Mono<Boolean> existsById(Long id) {
+		return template.exists(Query.query(Criteria.where("id").is(id)), Book.class);
+	}
+	
+	/**
+	 * Substitui título e autor e incrementa a versão em um único update. Com
+	 * versions, só atualiza se a versão atual estiver entre elas. Retorna o
+	 * número de linhas alteradas.
+	 */
+	public Mono<Long> updateContent(Long id, String title, String author, Instant lastModified, Collection<Long> versions) {
+		GenericExecuteSpec update = template.getDatabaseClient()
+				.sql("update book set title = :title, author = :author, version = coalesce(version, 0) + 1, "
+						+ "last_modified = :lastModified where id = :id" + (versions == null ? "" : " and version in (:versions)"))
+				.bind("title", title)
+				.bind("author", author)
+				.bind("lastModified", lastModified.atOffset(ZoneOffset.UTC))
+				.bind("id", id);
+		if(versions != null) {
+			update = update.bind("versions", versions);
+		}
+		return update.fetch().rowsUpdated();
+	}
+	
+	/**
+	 * Remove o livro em um único delete; com versions, só se a versão atual
+	 * estiver entre elas. Retorna o número de linhas removidas.
+	 */
+	public Mono<Long> deleteById(Long id, Collection<Long> versions) {
+		Criteria criteria = Criteria.where("id").is(id);
+		if(versions != null) {
+			criteria = criteria.and("version").in(versions);
+		}
+		return template.delete(Query.query(criteria), Book.class);
+	}
+	
+	public Flux<Book> findAll(Criteria criteria, Pageable pageable) {
+		return template.select(Query.query(criteria).with(pageable), Book.class);
+	}
+	
+	public Flux<Book> findAll(Criteria criteria, Sort sort, int limit) {
+		return template.select(Query.query(criteria).sort(sort).limit(limit), Book.class);
+	}
+	
+	public Flux<Book> streamAll() {
+		return template.select(Query.empty().sort(Sort.by("id")), Book.class);
+	}
+	
+	public Mono<Long> count(Criteria criteria) {
+		return template.count(Query.query(criteria), Book.class);
+	}
+	
+}
@@ -1,96 +1,504 @@
 package com.lucassilva.libraryapi.api.resource;
 
-import javax.validation.Valid;
+import java.io.IOException;
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.lucassilva.libraryapi.api.dto.BookBatchDTO;
+import com.lucassilva.libraryapi.api.dto.BookChangesDTO;
 import com.lucassilva.libraryapi.api.dto.BookDTO;
+import com.lucassilva.libraryapi.api.dto.BookImportResultDTO;
+import com.lucassilva.libraryapi.api.dto.BookImportResultDTO.Status;
+import com.lucassilva.libraryapi.api.dto.BookSearchResultDTO;
+import com.lucassilva.libraryapi.api.dto.BookUpdateDTO;
 import com.lucassilva.libraryapi.api.exception.ApiErros;
+import com.lucassilva.libraryapi.api.filter.RateLimitFilter;
+import com.lucassilva.libraryapi.api.mapper.BookMapper;
+import com.lucassilva.libraryapi.api.service.BookChangeCursor;
+import com.lucassilva.libraryapi.api.service.BookChanges;
+import com.lucassilva.libraryapi.api.service.BookSearchCursor;
+import com.lucassilva.libraryapi.api.service.BookSearchResult;
 import com.lucassilva.libraryapi.api.service.BookService;
 import com.lucassilva.libraryapi.exception.BusinessException;
 import com.lucassilva.libraryapi.model.entity.Book;
+import com.lucassilva.libraryapi.model.entity.BookTombstone;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/books")
 public class BookController {
 	
+	static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+	
+	static final String TEXT_CSV_VALUE = "text/csv";
+	
+	static final int MAX_CHANGES_LIMIT = 1000;
+	
+	static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+	
+	static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+	
 	@Autowired
 	private BookService bookService;
 	
-	private ModelMapper modelMapper;
+	private BookMapper bookMapper;
+	
+	private ObjectMapper objectMapper;
+	
+	private Validator validator;
+	
+	private IdempotencyStore idempotencyStore;
+	
+	private final Counter validationErrors;
+	
+	private final Counter businessErrors;
+	
+	@Value("${library.books.import.batch-size:500}")
+	private int importBatchSize;
+	
+	@Value("${library.books.batch-get.max-size:200}")
+	private int batchGetMaxSize;
 
-	public BookController(BookService bookService, ModelMapper modelMapper) {
+	public BookController(BookService bookService, BookMapper bookMapper, ObjectMapper objectMapper, Validator validator,
+			IdempotencyStore idempotencyStore, MeterRegistry registry) {
 		this.bookService = bookService;
-		this.modelMapper = modelMapper;
+		this.bookMapper = bookMapper;
+		this.objectMapper = objectMapper;
+		this.validator = validator;
+		this.idempotencyStore = idempotencyStore;
+		this.validationErrors = registry.counter("library.books.errors", "type", "validation");
+		this.businessErrors = registry.counter("library.books.errors", "type", "business");
 	}
 	
+	/**
+	 * Com Idempotency-Key, repetições da mesma requisição (por exemplo, após um
+	 * timeout no cliente) recebem a resposta original em vez de criar o livro
+	 * de novo ou falhar por isbn já cadastrado. A chave vale por cliente (a
+	 * mesma identificação do limite de taxa: usuário autenticado ou o IP), de
+	 * modo que clientes diferentes com a mesma chave não recebem a resposta
+	 * um do outro.
+	 */
 	@PostMapping
 	@ResponseStatus(HttpStatus.CREATED)
-	public BookDTO create(@RequestBody @Valid BookDTO book) {
+	public BookDTO create(@RequestBody @Valid BookDTO book,
+			@RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+			HttpServletRequest request, HttpServletResponse response) {
+		
+		if(idempotencyKey == null) {
+			return createBook(book);
+		}
+		
+		IdempotencyStore.Result<BookDTO> result = idempotencyStore.execute(RateLimitFilter.clientKey(request) + ":" + idempotencyKey, book, () -> createBook(book));
+		if(result.isReplayed()) {
+			response.setHeader(IDEMPOTENT_REPLAYED_HEADER, "true");
+		}
+		return result.getValue();
+	}
+	
+	private BookDTO createBook(BookDTO book) {
 		
-		Book bookEntity = modelMapper.map(book, Book.class);
+		Book bookEntity = bookMapper.toEntity(book);
 		
 		bookEntity = bookService.save(bookEntity);
 		
-		return modelMapper.map(book, BookDTO.class);
+		return bookMapper.toDto(bookEntity);
+	}
+	
+	@PostMapping(value = "import", consumes = { MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE })
+	public List<BookImportResultDTO> importBooks(InputStream body) throws IOException {
+		
+		List<BookImportResultDTO> results = new ArrayList<>();
+		List<BookDTO> batch = new ArrayList<>(importBatchSize);
+		List<Integer> batchIndexes = new ArrayList<>(importBatchSize);
+		
+		try (MappingIterator<BookDTO> items = objectMapper.readerFor(BookDTO.class).readValues(body)) {
+			int index = 0;
+			while (true) {
+				BookDTO dto;
+				try {
+					if(!items.hasNextValue()) {
+						break;
+					}
+					dto = items.nextValue();
+				} catch (JsonMappingException e) {
+					results.add(rejected(index++, null, Status.INVALID, e.getOriginalMessage()));
+					continue;
+				} catch (JsonProcessingException e) {
+					results.add(rejected(index, null, Status.INVALID, e.getOriginalMessage()));
+					break;
+				}
+				
+				Set<ConstraintViolation<BookDTO>> violations = validator.validate(dto);
+				if(!violations.isEmpty()) {
+					validationErrors.increment();
+					results.add(BookImportResultDTO.builder()
+							.index(index++)
+							.isbn(dto.getIsbn())
+							.status(Status.INVALID)
+							.errors(violations.stream().map(ConstraintViolation::getMessage).collect(Collectors.toList()))
+							.build());
+					continue;
+				}
+				
+				batch.add(dto);
+				batchIndexes.add(index++);
+				if(batch.size() == importBatchSize) {
+					importBatch(batch, batchIndexes, results);
+				}
+			}
+		}
+		importBatch(batch, batchIndexes, results);
+		
+		results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+		return results;
+	}
+	
+	private void importBatch(List<BookDTO> batch, List<Integer> batchIndexes, List<BookImportResultDTO> results) {
+		if(batch.isEmpty()) {
+			return;
+		}
+		
+		List<Book> books = batch.stream().map(bookMapper::toEntity).collect(Collectors.toList());
+		List<Book> savedBooks = bookService.saveAll(books);
+		
+		for (int i = 0; i < batch.size(); i++) {
+			Book saved = savedBooks.get(i);
+			if(saved == null) {
+				results.add(rejected(batchIndexes.get(i), batch.get(i).getIsbn(), Status.DUPLICATED, "Isbn já cadastrado."));
+			} else {
+				results.add(BookImportResultDTO.builder()
+						.index(batchIndexes.get(i))
+						.id(saved.getId())
+						.isbn(saved.getIsbn())
+						.status(Status.CREATED)
+						.errors(Collections.emptyList())
+						.build());
+			}
+		}
+		
+		batch.clear();
+		batchIndexes.clear();
+	}
+	
+	private BookImportResultDTO rejected(int index, String isbn, Status status, String error) {
+		return BookImportResultDTO.builder()
+				.index(index)
+				.isbn(isbn)
+				.status(status)
+				.errors(Collections.singletonList(error))
+				.build();
 	}
 	
+	/**
+	 * Obtém vários livros em uma só requisição, na ordem dos ids informados
+	 * (ids repetidos são considerados uma vez), listando à parte os ids que não
+	 * existem.
+	 */
+	@GetMapping("batch")
+	public BookBatchDTO getBatch(@RequestParam List<Long> ids) {
+		List<Long> uniqueIds = new ArrayList<>(new LinkedHashSet<>(ids));
+		if(uniqueIds.size() > batchGetMaxSize) {
+			throw new BusinessException("O lote deve ter no máximo " + batchGetMaxSize + " ids.");
+		}
+		
+		List<Book> books = bookService.getAllById(uniqueIds);
+		
+		List<BookDTO> found = new ArrayList<>();
+		List<Long> missingIds = new ArrayList<>();
+		for (int i = 0; i < uniqueIds.size(); i++) {
+			if(books.get(i) == null) {
+				missingIds.add(uniqueIds.get(i));
+			} else {
+				found.add(bookMapper.toDto(books.get(i)));
+			}
+		}
+		
+		return BookBatchDTO.builder().books(found).missingIds(missingIds).build();
+	}
+	
+	/**
+	 * Responde 304 sem mapear nem serializar o livro quando o If-None-Match
+	 * (ou, na falta dele, o If-Modified-Since) indica que o cliente já tem a
+	 * versão atual.
+	 */
 	@GetMapping("{id}")
-	public BookDTO get(@PathVariable Long id) {
+	public BookDTO get(@PathVariable Long id, WebRequest request) {
+		Book book = bookService.getById(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		
+		if(request.checkNotModified(BookETags.eTag(book), lastModified(book))) {
+			return null;
+		}
+		
+		return bookMapper.toDto(book);
+	}
+	
+	/**
+	 * Obtém o livro pelo ISBN-10 ou ISBN-13, com ou sem hífens. O id vem do
+	 * índice de isbns em memória e o livro é respondido como em GET {id}.
+	 */
+	@GetMapping("isbn/{isbn}")
+	public BookDTO getByIsbn(@PathVariable String isbn, WebRequest request) {
+		long id = bookService.findIdByIsbn(isbn).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 		
-		return bookService.getById(id)
-				          .map( book -> modelMapper.map(book, BookDTO.class) )
-				          .orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		return get(id, request);
+	}
+	
+	@GetMapping
+	public Page<BookDTO> find(BookDTO dto, Pageable pageRequest) {
+		Book filter = bookMapper.toEntity(dto);
+		
+		return bookService.find(filter, pageRequest)
+				          .map(bookMapper::toDto);
+	}
+	
+	@GetMapping(params = "afterId")
+	public Slice<BookDTO> findAfter(BookDTO dto, @RequestParam Long afterId, Pageable pageRequest) {
+		Book filter = bookMapper.toEntity(dto);
+		
+		return bookService.findAfter(filter, afterId, pageRequest)
+				          .map(bookMapper::toDto);
+	}
+	
+	@GetMapping("search")
+	public Page<BookDTO> search(@RequestParam("q") String text, Pageable pageRequest) {
+		
+		return bookService.search(text, pageRequest)
+				          .map(bookMapper::toDto);
+	}
+	
+	/**
+	 * Busca paginada por cursor, sem o limite de profundidade da paginação por
+	 * número: a primeira página é pedida com after vazio, e as seguintes com o
+	 * after da resposta anterior.
+	 */
+	@GetMapping(value = "search", params = "after")
+	public BookSearchResultDTO searchAfter(@RequestParam("q") String text, @RequestParam String after,
+			@RequestParam(defaultValue = "20") int size) {
+		BookSearchResult result = bookService.searchAfter(text, BookSearchCursor.parse(after), size);
+		
+		return BookSearchResultDTO.builder()
+				.books(result.getBooks().stream().map(bookMapper::toDto).collect(Collectors.toList()))
+				.after(result.getNext() == null ? null : result.getNext().toToken())
+				.hasMore(result.isHasMore())
+				.build();
+	}
+	
+	/**
+	 * Sincronização incremental: livros criados, alterados ou removidos depois
+	 * do token since (sem token, todo o catálogo). O since da resposta deve ser
+	 * enviado na próxima chamada; com hasMore, ainda há alterações a buscar.
+	 */
+	@GetMapping("changes")
+	public BookChangesDTO changes(@RequestParam(required = false) String since, @RequestParam(defaultValue = "500") int limit) {
+		BookChanges changes = bookService.findChanges(BookChangeCursor.parse(since), Math.max(1, Math.min(limit, MAX_CHANGES_LIMIT)));
+		
+		return BookChangesDTO.builder()
+				.books(changes.getBooks().stream().map(bookMapper::toDto).collect(Collectors.toList()))
+				.deletedIds(changes.getTombstones().stream().map(BookTombstone::getBookId).collect(Collectors.toList()))
+				.since(changes.getNext().toToken())
+				.hasMore(changes.isHasMore())
+				.build();
+	}
+	
+	@GetMapping(value = "export", produces = APPLICATION_NDJSON_VALUE)
+	public void exportNdjson(HttpServletResponse response) throws IOException {
+		ObjectWriter bookWriter = objectMapper.writerFor(BookDTO.class);
+		
+		export(response, APPLICATION_NDJSON_VALUE, null, (writer, book) -> {
+			writer.write(bookWriter.writeValueAsString(bookMapper.toDto(book)));
+			writer.write('\n');
+		});
+	}
+	
+	@GetMapping(value = "export", produces = TEXT_CSV_VALUE)
+	public void exportCsv(HttpServletResponse response) throws IOException {
+		export(response, TEXT_CSV_VALUE, "id,title,author,isbn\n", (writer, book) -> {
+			writer.write(String.valueOf(book.getId()));
+			writer.write(',');
+			writer.write(csvField(book.getTitle()));
+			writer.write(',');
+			writer.write(csvField(book.getAuthor()));
+			writer.write(',');
+			writer.write(csvField(book.getIsbn()));
+			writer.write('\n');
+		});
+	}
+	
+	private void export(HttpServletResponse response, String contentType, String header, BookLineWriter lineWriter) throws IOException {
+		response.setContentType(contentType);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		
+		Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+		if(header != null) {
+			writer.write(header);
+		}
+		
+		try {
+			bookService.exportAll( book -> {
+				try {
+					lineWriter.write(writer, book);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		
+		writer.flush();
+	}
+	
+	private static String csvField(String value) {
+		if(value == null) {
+			return "";
+		}
+		if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+	
+	@FunctionalInterface
+	private interface BookLineWriter {
+		void write(Writer writer, Book book) throws IOException;
 	}
 	
 	@DeleteMapping("{id}")
 	@ResponseStatus(HttpStatus.NO_CONTENT)
 	public void delete(@PathVariable Long id) {
-		Book book = bookService.getById(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-		
-		bookService.delete(book);
+		if(!bookService.deleteById(id)) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		}
 	}
 	
+	/**
+	 * Substitui título e autor; o corpo não leva isbn, que não pode ser
+	 * alterado. Com If-Match, só atualiza se o ETag informado ainda for o do
+	 * livro; a versão é conferida no próprio update, então uma alteração
+	 * concorrente também resulta em 412.
+	 */
 	@PutMapping("{id}")
-	@ResponseStatus(HttpStatus.OK)
-	public BookDTO update(@PathVariable Long id, BookDTO dto) {
+	public ResponseEntity<BookDTO> update(@PathVariable Long id, @RequestBody @Valid BookUpdateDTO dto,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Collection<Long> versions = BookETags.expectedVersions(ifMatch);
+		Book changes = Book.builder().title(dto.getTitle()).author(dto.getAuthor()).build();
 		
-		return bookService.getById(id).map( book -> {
-			book.setAuthor(dto.getAuthor());
-			book.setTitle(dto.getTitle());
-			
-			book = bookService.update(book);
-			
-			return modelMapper.map(book, BookDTO.class);
-		}).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		return updated(ifMatch, () -> bookService.update(id, changes, versions));
+	}
+	
+	/**
+	 * Altera apenas os campos informados no corpo, em um único update; campos
+	 * ausentes ou null permanecem como estão. Aceita If-Match como o PUT.
+	 */
+	@PatchMapping("{id}")
+	public ResponseEntity<BookDTO> patch(@PathVariable Long id, @RequestBody BookDTO dto,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Collection<Long> versions = BookETags.expectedVersions(ifMatch);
+		Book changes = Book.builder().title(dto.getTitle()).author(dto.getAuthor()).isbn(dto.getIsbn()).build();
+		
+		return updated(ifMatch, () -> bookService.patch(id, changes, versions));
+	}
+	
+	private ResponseEntity<BookDTO> updated(String ifMatch, Supplier<Optional<Book>> update) {
+		Book book;
+		try {
+			book = update.get().orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		} catch (OptimisticLockingFailureException e) {
+			if(ifMatch != null) {
+				throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+			}
+			throw e;
+		}
+		
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if(book.getVersion() != null) {
+			response.eTag(BookETags.eTag(book));
+		}
+		if(book.getLastModified() != null) {
+			response.lastModified(book.getLastModified());
+		}
+		return response.body(bookMapper.toDto(book));
+	}
+	
+	private long lastModified(Book book) {
+		return book.getLastModified() == null ? -1 : book.getLastModified().toEpochMilli();
 	}
 	
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ApiErros handleValidationExceptions(MethodArgumentNotValidException exception) {
+		validationErrors.increment();
 		BindingResult bindingResult = exception.getBindingResult();
 				
 		return new ApiErros(bindingResult);
 	}
 	
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	@ResponseStatus(HttpStatus.CONFLICT)
+	public ApiErros handleOptimisticLockingFailure(OptimisticLockingFailureException exception) {
+		return new ApiErros("O livro foi alterado por outra requisição.");
+	}
+	
 	@ExceptionHandler(BusinessException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ApiErros handleBusinessException(BusinessException exception) {
+		businessErrors.increment();
 		return new ApiErros(exception);
 	}
 	
@@ -0,0 +1,57 @@
+package com.lucassilva.libraryapi.api.resource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.lucassilva.libraryapi.model.entity.Book;
+
+/**
+ * ETags dos livros, derivados da versão, e as pré-condições If-Match
+ * aceitas pelos controllers de livros.
+ */
+final class BookETags {
+
+	private BookETags() {
+	}
+	
+	/**
+	 * Versões aceitas pelo If-Match, pela comparação forte: ETags fracos (W/)
+	 * nunca correspondem. Retorna null sem If-Match ou com "*", quando basta
+	 * que o livro exista; sem nenhuma versão válida, responde 412 sem
+	 * consultar a base.
+	 */
+	static Collection<Long> expectedVersions(String ifMatch) {
+		if(ifMatch == null) {
+			return null;
+		}
+		
+		List<Long> versions = new ArrayList<>();
+		for (String candidate : ifMatch.split(",")) {
+			candidate = candidate.trim();
+			if(candidate.equals("*")) {
+				return null;
+			}
+			if(candidate.length() > 2 && candidate.startsWith("\"") && candidate.endsWith("\"")) {
+				try {
+					versions.add(Long.valueOf(candidate.substring(1, candidate.length() - 1)));
+				} catch (NumberFormatException e) {
+					// ETag que não foi gerado por esta API: nunca corresponde
+				}
+			}
+		}
+		
+		if(versions.isEmpty()) {
+			throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+		}
+		return versions;
+	}
+	
+	static String eTag(Book book) {
+		return book.getVersion() == null ? null : "\"" + book.getVersion() + "\"";
+	}
+	
+}
@@ -0,0 +1,59 @@
+package com.lucassilva.libraryapi.api.resource;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.lucassilva.libraryapi.api.dto.BookEventDTO;
+import com.lucassilva.libraryapi.api.mapper.BookMapper;
+import com.lucassilva.libraryapi.api.service.BookEventService;
+
+/**
+ * Feed das alterações de livros, retomável pelo offset do último evento
+ * recebido: em SSE (o id de cada evento é o offset, e o Last-Event-ID enviado
+ * na reconexão tem precedência sobre o parâmetro after) ou em páginas JSON.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/books/events")
+public class BookEventController {
+
+	static final int MAX_LIMIT = 1000;
+	
+	private BookEventService eventService;
+	
+	private BookEventFeed eventFeed;
+	
+	private BookMapper bookMapper;
+	
+	public BookEventController(BookEventService eventService, BookEventFeed eventFeed, BookMapper bookMapper) {
+		this.eventService = eventService;
+		this.eventFeed = eventFeed;
+		this.bookMapper = bookMapper;
+	}
+	
+	@GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter stream(@RequestParam(defaultValue = "0") long after,
+			@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+		
+		return eventFeed.subscribe(lastEventId != null ? lastEventId : after);
+	}
+	
+	@GetMapping
+	public List<BookEventDTO> find(@RequestParam(defaultValue = "0") long after, @RequestParam(defaultValue = "100") int limit) {
+		
+		return eventService.findAfter(after, Math.max(1, Math.min(limit, MAX_LIMIT)))
+				           .stream()
+				           .map(bookMapper::toDto)
+				           .collect(Collectors.toList());
+	}
+	
+}
@@ -0,0 +1,119 @@
+package com.lucassilva.libraryapi.api.resource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.lucassilva.libraryapi.api.mapper.BookMapper;
+import com.lucassilva.libraryapi.api.service.BookEventService;
+import com.lucassilva.libraryapi.model.entity.BookEvent;
+
+/**
+ * Publica periodicamente os eventos da outbox e os entrega aos assinantes do
+ * feed SSE. Cada assinante é atendido a partir do último offset que recebeu,
+ * lendo da base, de modo que a carga inicial e os eventos novos seguem o
+ * mesmo caminho e chegam sempre em ordem, sem lacunas nem repetições.
+ */
+@Component
+@Profile("!reactive")
+public class BookEventFeed {
+
+	private final BookEventService eventService;
+	
+	private final BookMapper bookMapper;
+	
+	private final Executor executor;
+	
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+	
+	@Value("${library.books.events.delivery-batch-size:500}")
+	private int deliveryBatchSize;
+	
+	@Value("${library.books.events.sse-timeout-ms:1800000}")
+	private long sseTimeout;
+	
+	public BookEventFeed(BookEventService eventService, BookMapper bookMapper,
+			@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+		this.eventService = eventService;
+		this.bookMapper = bookMapper;
+		this.executor = executor;
+	}
+	
+	public SseEmitter subscribe(long afterOffset) {
+		Subscriber subscriber = new Subscriber(new SseEmitter(sseTimeout), afterOffset);
+		subscriber.emitter.onCompletion( () -> subscribers.remove(subscriber) );
+		subscriber.emitter.onTimeout( () -> subscribers.remove(subscriber) );
+		subscriber.emitter.onError( error -> subscribers.remove(subscriber) );
+		
+		// o comentário inicial confirma a assinatura e libera os cabeçalhos da
+		// resposta antes do primeiro evento
+		try {
+			subscriber.emitter.send(SseEmitter.event().comment("offset " + afterOffset));
+		} catch (IOException e) {
+			subscriber.emitter.completeWithError(e);
+			return subscriber.emitter;
+		}
+		
+		subscribers.add(subscriber);
+		executor.execute( () -> deliver(subscriber) );
+		
+		return subscriber.emitter;
+	}
+	
+	@Scheduled(fixedDelayString = "${library.books.events.relay-interval-ms:500}",
+			initialDelayString = "${library.books.events.relay-interval-ms:500}")
+	public void relay() {
+		if(eventService.publishPending() > 0) {
+			subscribers.forEach( subscriber -> executor.execute( () -> deliver(subscriber) ) );
+		}
+	}
+	
+	private void deliver(Subscriber subscriber) {
+		subscriber.lock.lock();
+		try {
+			List<BookEvent> events;
+			do {
+				events = eventService.findAfter(subscriber.lastOffset, deliveryBatchSize);
+				for (BookEvent event : events) {
+					subscriber.emitter.send(SseEmitter.event()
+							.id(event.getOffset().toString())
+							.name(event.getType().name())
+							.data(bookMapper.toDto(event), MediaType.APPLICATION_JSON));
+					subscriber.lastOffset = event.getOffset();
+				}
+			} while (events.size() == deliveryBatchSize);
+		} catch (IOException | IllegalStateException e) {
+			subscribers.remove(subscriber);
+			subscriber.emitter.completeWithError(e);
+		} finally {
+			subscriber.lock.unlock();
+		}
+	}
+	
+	private static class Subscriber {
+		
+		private final SseEmitter emitter;
+		
+		private final ReentrantLock lock = new ReentrantLock();
+		
+		private long lastOffset;
+		
+		Subscriber(SseEmitter emitter, long lastOffset) {
+			this.emitter = emitter;
+			this.lastOffset = lastOffset;
+		}
+		
+	}
+	
+}
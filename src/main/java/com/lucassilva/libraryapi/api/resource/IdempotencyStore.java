@@ -0,0 +1,126 @@
+package com.lucassilva.libraryapi.api.resource;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lucassilva.libraryapi.exception.BusinessException;
+
+/**
+ * Resultados de requisições com Idempotency-Key, guardados por tempo e
+ * quantidade limitados. A primeira requisição com uma chave executa a ação;
+ * as repetidas recebem o mesmo resultado (ou a mesma BusinessException) sem
+ * executá-la de novo, e as que chegam enquanto a primeira ainda executa
+ * aguardam o seu resultado. Falhas inesperadas não são guardadas, para que
+ * o cliente possa tentar novamente com a mesma chave.
+ */
+@Component
+@Profile("!reactive")
+public class IdempotencyStore {
+
+	private final Cache<String, Execution> executions;
+	
+	private final long waitTimeoutMs;
+	
+	public IdempotencyStore(@Value("${library.books.idempotency.max-keys:100000}") long maxKeys,
+			@Value("${library.books.idempotency.ttl-ms:86400000}") long ttlMs,
+			@Value("${library.books.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs) {
+		this.executions = Caffeine.newBuilder()
+				.maximumSize(maxKeys)
+				.expireAfterWrite(Duration.ofMillis(ttlMs))
+				.build();
+		this.waitTimeoutMs = waitTimeoutMs;
+	}
+	
+	/**
+	 * Executa a ação uma única vez por chave. A requisição é identificada pelo
+	 * seu conteúdo (equals): a mesma chave com outro conteúdo é recusada.
+	 */
+	public <T> Result<T> execute(String key, Object request, Supplier<T> action) {
+		Execution execution = new Execution(request);
+		Execution existing = executions.asMap().putIfAbsent(key, execution);
+		if(existing != null) {
+			return new Result<>(existing.await(request, waitTimeoutMs), true);
+		}
+		
+		try {
+			T value = action.get();
+			execution.response.complete(value);
+			return new Result<>(value, false);
+		} catch (BusinessException e) {
+			execution.response.completeExceptionally(e);
+			throw e;
+		} catch (RuntimeException | Error e) {
+			executions.asMap().remove(key, execution);
+			execution.response.completeExceptionally(e);
+			throw e;
+		}
+	}
+	
+	public static class Result<T> {
+		
+		private final T value;
+		
+		private final boolean replayed;
+		
+		Result(T value, boolean replayed) {
+			this.value = value;
+			this.replayed = replayed;
+		}
+		
+		public T getValue() {
+			return value;
+		}
+		
+		public boolean isReplayed() {
+			return replayed;
+		}
+		
+	}
+	
+	private static class Execution {
+		
+		private final Object request;
+		
+		private final CompletableFuture<Object> response = new CompletableFuture<>();
+		
+		Execution(Object request) {
+			this.request = request;
+		}
+		
+		@SuppressWarnings("unchecked")
+		<T> T await(Object otherRequest, long timeoutMs) {
+			if(!Objects.equals(request, otherRequest)) {
+				throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key já utilizada por outra requisição.");
+			}
+			
+			try {
+				return (T) response.get(timeoutMs, TimeUnit.MILLISECONDS);
+			} catch (ExecutionException e) {
+				if(e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw (Error) e.getCause();
+			} catch (TimeoutException e) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "A requisição original ainda está em andamento.");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,149 @@
+package com.lucassilva.libraryapi.api.resource;
+
+import jakarta.validation.Valid;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.lucassilva.libraryapi.api.dto.BookDTO;
+import com.lucassilva.libraryapi.api.dto.BookUpdateDTO;
+import com.lucassilva.libraryapi.api.exception.ApiErros;
+import com.lucassilva.libraryapi.api.mapper.BookMapper;
+import com.lucassilva.libraryapi.api.service.ReactiveBookService;
+import com.lucassilva.libraryapi.exception.BusinessException;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mesmo contrato de /api/books do {@link BookController}, servido por WebFlux e R2DBC
+ * quando o perfil "reactive" está ativo.
+ */
+@RestController
+@RequestMapping("/api/books")
+@Profile("reactive")
+public class ReactiveBookController {
+
+	private ReactiveBookService bookService;
+	
+	private BookMapper bookMapper;
+	
+	private final Counter validationErrors;
+	
+	private final Counter businessErrors;
+	
+	public ReactiveBookController(ReactiveBookService bookService, BookMapper bookMapper, MeterRegistry registry) {
+		this.bookService = bookService;
+		this.bookMapper = bookMapper;
+		this.validationErrors = registry.counter("library.books.errors", "type", "validation");
+		this.businessErrors = registry.counter("library.books.errors", "type", "business");
+	}
+	
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public Mono<BookDTO> create(@RequestBody @Valid BookDTO dto) {
+		return bookService.save(bookMapper.toEntity(dto))
+				          .map(bookMapper::toDto);
+	}
+	
+	@GetMapping("{id}")
+	public Mono<ResponseEntity<BookDTO>> get(@PathVariable Long id) {
+		return bookService.getById(id)
+				          .map(this::ok)
+				          .switchIfEmpty(notFound());
+	}
+	
+	@GetMapping
+	public Mono<Page<BookDTO>> find(BookDTO dto, Pageable pageRequest) {
+		return bookService.find(bookMapper.toEntity(dto), pageRequest)
+				          .map( page -> page.map(bookMapper::toDto) );
+	}
+	
+	@GetMapping(params = "afterId")
+	public Mono<Slice<BookDTO>> findAfter(BookDTO dto, @RequestParam Long afterId, Pageable pageRequest) {
+		return bookService.findAfter(bookMapper.toEntity(dto), afterId, pageRequest)
+				          .map( slice -> slice.map(bookMapper::toDto) );
+	}
+	
+	@GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<BookDTO> export() {
+		return bookService.exportAll()
+				          .map(bookMapper::toDto);
+	}
+	
+	/**
+	 * Remove e altera o livro com um único comando cada, condicionado à versão
+	 * quando há If-Match, como no {@link BookController}: sem o livro
+	 * responde 404, e com uma versão diferente da informada, 412.
+	 */
+	@DeleteMapping("{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public Mono<Void> delete(@PathVariable Long id,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return bookService.deleteById(id, BookETags.expectedVersions(ifMatch))
+				          .flatMap( deleted -> deleted ? Mono.<Void>empty() : notFound() )
+				          .onErrorMap(OptimisticLockingFailureException.class, e -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED));
+	}
+	
+	@PutMapping("{id}")
+	public Mono<ResponseEntity<BookDTO>> update(@PathVariable Long id, @RequestBody @Valid BookUpdateDTO dto,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Book changes = Book.builder().title(dto.getTitle()).author(dto.getAuthor()).build();
+		
+		return bookService.update(id, changes, BookETags.expectedVersions(ifMatch))
+				          .map(this::ok)
+				          .switchIfEmpty(notFound())
+				          .onErrorMap(OptimisticLockingFailureException.class, e -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED));
+	}
+	
+	@ExceptionHandler(WebExchangeBindException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ApiErros handleValidationExceptions(WebExchangeBindException exception) {
+		validationErrors.increment();
+		return new ApiErros(exception.getBindingResult());
+	}
+	
+	@ExceptionHandler(BusinessException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ApiErros handleBusinessException(BusinessException exception) {
+		businessErrors.increment();
+		return new ApiErros(exception);
+	}
+	
+	private ResponseEntity<BookDTO> ok(Book book) {
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if(book.getVersion() != null) {
+			response.eTag(BookETags.eTag(book));
+		}
+		return response.body(bookMapper.toDto(book));
+	}
+	
+	private static <T> Mono<T> notFound() {
+		return Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+	}
+	
+}
@@ -0,0 +1,66 @@
+package com.lucassilva.libraryapi.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+import com.lucassilva.libraryapi.exception.BusinessException;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Posição da sincronização incremental: o último (lastModified, id) de livro e
+ * o último (deletedAt, bookId) de remoção já entregues ao cliente. As duas
+ * posições avançam de forma independente, pois um id nunca é reutilizado.
+ * Circula entre cliente e servidor como um token opaco.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class BookChangeCursor {
+
+	public static final BookChangeCursor START = new BookChangeCursor(Instant.EPOCH, 0L, Instant.EPOCH, 0L);
+
+	private final Instant bookModified;
+	private final Long bookId;
+	private final Instant tombstoneDeleted;
+	private final Long tombstoneId;
+
+	/**
+	 * Lê um token gerado por {@link #toToken()}; null ou vazio começa do início.
+	 */
+	public static BookChangeCursor parse(String token) {
+		if(token == null || token.isEmpty()) {
+			return START;
+		}
+
+		try {
+			String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+			if(parts.length != 4) {
+				throw new IllegalArgumentException();
+			}
+			return new BookChangeCursor(
+					fromMicros(Long.parseLong(parts[0])), Long.valueOf(parts[1]),
+					fromMicros(Long.parseLong(parts[2])), Long.valueOf(parts[3]));
+		} catch (IllegalArgumentException e) {
+			throw new BusinessException("Token de sincronização inválido.");
+		}
+	}
+
+	public String toToken() {
+		String value = toMicros(bookModified) + ":" + bookId + ":" + toMicros(tombstoneDeleted) + ":" + tombstoneId;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static long toMicros(Instant instant) {
+		return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+	}
+
+	private static Instant fromMicros(long micros) {
+		return Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+	}
+
+}
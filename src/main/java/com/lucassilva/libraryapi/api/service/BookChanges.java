@@ -0,0 +1,25 @@
+package com.lucassilva.libraryapi.api.service;
+
+import java.util.List;
+
+import com.lucassilva.libraryapi.model.entity.Book;
+import com.lucassilva.libraryapi.model.entity.BookTombstone;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Uma página da sincronização incremental: livros criados ou alterados e
+ * livros removidos depois do cursor informado, e o cursor para a próxima
+ * página.
+ */
+@Getter
+@AllArgsConstructor
+public class BookChanges {
+
+	private final List<Book> books;
+	private final List<BookTombstone> tombstones;
+	private final BookChangeCursor next;
+	private final boolean hasMore;
+
+}
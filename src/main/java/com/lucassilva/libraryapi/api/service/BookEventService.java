@@ -0,0 +1,13 @@
+package com.lucassilva.libraryapi.api.service;
+
+import java.util.List;
+
+import com.lucassilva.libraryapi.model.entity.BookEvent;
+
+public interface BookEventService {
+
+	int publishPending();
+
+	List<BookEvent> findAfter(long offset, int limit);
+
+}
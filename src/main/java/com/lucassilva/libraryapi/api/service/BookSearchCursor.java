@@ -0,0 +1,50 @@
+package com.lucassilva.libraryapi.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.lucassilva.libraryapi.exception.BusinessException;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Posição da busca textual por cursor: a relevância e o id do último livro
+ * entregue, que é a ordem da busca. Circula entre cliente e servidor como um
+ * token opaco.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class BookSearchCursor {
+
+	private final float score;
+	private final long bookId;
+
+	/**
+	 * Lê um token gerado por {@link #toToken()}; null ou vazio começa do
+	 * primeiro resultado e retorna null.
+	 */
+	public static BookSearchCursor parse(String token) {
+		if(token == null || token.isEmpty()) {
+			return null;
+		}
+
+		try {
+			String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+			if(parts.length != 2) {
+				throw new IllegalArgumentException();
+			}
+			return new BookSearchCursor(Float.intBitsToFloat(Integer.parseUnsignedInt(parts[0], 16)), Long.parseLong(parts[1]));
+		} catch (IllegalArgumentException e) {
+			throw new BusinessException("Token de busca inválido.");
+		}
+	}
+
+	public String toToken() {
+		String value = Integer.toHexString(Float.floatToIntBits(score)) + ":" + bookId;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
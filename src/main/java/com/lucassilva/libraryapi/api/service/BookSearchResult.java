@@ -0,0 +1,22 @@
+package com.lucassilva.libraryapi.api.service;
+
+import java.util.List;
+
+import com.lucassilva.libraryapi.model.entity.Book;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Uma página da busca textual por cursor: os livros depois do cursor
+ * informado e o cursor para a próxima página, null quando não houver livros.
+ */
+@Getter
+@AllArgsConstructor
+public class BookSearchResult {
+
+	private final List<Book> books;
+	private final BookSearchCursor next;
+	private final boolean hasMore;
+
+}
@@ -1,6 +1,14 @@
 package com.lucassilva.libraryapi.api.service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import com.lucassilva.libraryapi.model.entity.Book;
 
@@ -10,8 +18,32 @@ public interface BookService {
 
 	Optional<Book> getById(Long id);
 
+	OptionalLong findIdByIsbn(String isbn);
+
+	List<Book> getAllById(List<Long> ids);
+
 	void delete(Book book);
 
 	Book update(Book book);
+
+	boolean deleteById(Long id);
+
+	Optional<Book> update(Long id, Book changes, Collection<Long> expectedVersions);
+
+	Optional<Book> patch(Long id, Book changes, Collection<Long> expectedVersions);
+
+	List<Book> saveAll(List<Book> books);
+
+	Page<Book> find(Book filter, Pageable pageRequest);
+
+	Slice<Book> findAfter(Book filter, Long afterId, Pageable pageRequest);
+
+	Page<Book> search(String text, Pageable pageRequest);
+
+	BookSearchResult searchAfter(String text, BookSearchCursor after, int size);
+
+	BookChanges findChanges(BookChangeCursor since, int limit);
+
+	void exportAll(Consumer<Book> action);
 	
 }
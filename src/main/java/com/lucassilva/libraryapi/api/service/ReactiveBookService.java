@@ -0,0 +1,39 @@
+package com.lucassilva.libraryapi.api.service;
+
+import java.util.Collection;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import com.lucassilva.libraryapi.model.entity.Book;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveBookService {
+
+	Mono<Book> save(Book book);
+	
+	Mono<Book> getById(Long id);
+	
+	/**
+	 * Remove o livro em um único comando. Com expectedVersions, só remove se a
+	 * versão atual estiver entre as informadas; caso contrário termina com
+	 * OptimisticLockingFailureException. Retorna false quando o livro não existe.
+	 */
+	Mono<Boolean> deleteById(Long id, Collection<Long> expectedVersions);
+	
+	/**
+	 * Substitui título e autor em um único comando, com a mesma verificação de
+	 * versão de deleteById. Termina vazio quando o livro não existe.
+	 */
+	Mono<Book> update(Long id, Book changes, Collection<Long> expectedVersions);
+	
+	Mono<Page<Book>> find(Book filter, Pageable pageRequest);
+	
+	Mono<Slice<Book>> findAfter(Book filter, Long afterId, Pageable pageRequest);
+	
+	Flux<Book> exportAll();
+	
+}
@@ -0,0 +1,57 @@
+package com.lucassilva.libraryapi.api.service.impl;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.lucassilva.libraryapi.api.repository.BookEventRepository;
+import com.lucassilva.libraryapi.api.service.BookEventService;
+import com.lucassilva.libraryapi.model.entity.BookEvent;
+
+@Service
+@Profile("!reactive")
+public class BookEventServiceImpl implements BookEventService {
+
+	private BookEventRepository repository;
+	
+	private int publishBatchSize;
+	
+	public BookEventServiceImpl(BookEventRepository repository,
+			@Value("${library.books.events.publish-batch-size:500}") int publishBatchSize) {
+		this.repository = repository;
+		this.publishBatchSize = publishBatchSize;
+	}
+	
+	/**
+	 * Atribui offsets sequenciais aos eventos ainda não publicados. Os ids vêm
+	 * de uma sequence e não seguem a ordem de commit, então um evento de id
+	 * menor pode ser gravado depois de outro já lido pelos consumidores; o
+	 * offset, atribuído aqui sob lock das linhas pendentes, só cresce e não
+	 * deixa lacunas, o que permite retomar o feed pelo último offset recebido.
+	 */
+	@Override
+	@Transactional
+	public int publishPending() {
+		List<BookEvent> pending = repository.findUnpublished(PageRequest.of(0, publishBatchSize));
+		if(pending.isEmpty()) {
+			return 0;
+		}
+		
+		long offset = repository.findLastOffset();
+		for (BookEvent event : pending) {
+			event.setOffset(++offset);
+		}
+		
+		return pending.size();
+	}
+
+	@Override
+	public List<BookEvent> findAfter(long offset, int limit) {
+		return repository.findByOffsetGreaterThanOrderByOffset(offset, PageRequest.of(0, limit));
+	}
+
+}
@@ -0,0 +1,373 @@
+package com.lucassilva.libraryapi.api.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.pt.PortugueseAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import com.lucassilva.libraryapi.api.repository.BookRepository;
+import com.lucassilva.libraryapi.api.service.BookSearchCursor;
+import com.lucassilva.libraryapi.api.service.BookSearchResult;
+import com.lucassilva.libraryapi.exception.BusinessException;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+/**
+ * Índice textual (Lucene) de título e autor dos livros, usado pela busca por
+ * palavras no lugar de LIKE '%...%' na base. Cada palavra da busca precisa
+ * aparecer no título ou no autor, seja por igualdade, prefixo ou com até duas
+ * letras trocadas; igualdades pontuam mais que prefixos, e prefixos mais que
+ * aproximações. Acentos e maiúsculas são ignorados.
+ * O índice é reconstruído a partir da base na inicialização e atualizado pelo
+ * BookSearchIndexListener após cada commit; até o fim da carga inicial a busca
+ * pode retornar resultados incompletos. As alterações recebidas durante a
+ * carga são guardadas e aplicadas depois dela, para que a leitura da base,
+ * anterior a elas, não traga de volta um livro removido ou uma versão antiga.
+ */
+@Component
+@Profile("!reactive")
+public class BookSearchIndex {
+
+	static final String ID = "id";
+	static final String TITLE = "title";
+	static final String AUTHOR = "author";
+	static final String ISBN = "isbn";
+
+	/**
+	 * Último resultado alcançável pela paginação por número de página.
+	 */
+	public static final int MAX_RESULT_WINDOW = 10_000;
+
+	private static final String[] SEARCH_FIELDS = { TITLE, AUTHOR };
+
+	private static final Sort RELEVANCE = new Sort(SortField.FIELD_SCORE, new SortField(ID, SortField.Type.LONG));
+
+	private final BookRepository repository;
+
+	private final Analyzer analyzer = new BookAnalyzer();
+
+	private final Directory directory;
+
+	private final IndexWriter writer;
+
+	private final SearcherManager searcherManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Alterações recebidas durante a carga inicial; null depois dela. Acessada
+	 * só com o warmUpLock.
+	 */
+	private List<Runnable> changesDuringWarmUp = new ArrayList<>();
+
+	private final Object warmUpLock = new Object();
+
+	public BookSearchIndex(BookRepository repository,
+			@Value("${library.books.search.index-path:}") String indexPath) throws IOException {
+		this.repository = repository;
+		this.directory = StringUtils.hasText(indexPath) ? FSDirectory.open(Paths.get(indexPath)) : new ByteBuffersDirectory();
+		this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(OpenMode.CREATE));
+		this.searcherManager = new SearcherManager(writer, null);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void warmUp() {
+		try (Stream<Book> books = repository.streamAll()) {
+			books.forEach( book -> {
+				write(book);
+				entityManager.detach(book);
+			});
+		}
+
+		synchronized (warmUpLock) {
+			changesDuringWarmUp.forEach(Runnable::run);
+			changesDuringWarmUp = null;
+		}
+		refresh();
+	}
+
+	/**
+	 * Aplica ao índice os livros gravados e removidos, tornando-os visíveis
+	 * para as buscas seguintes.
+	 */
+	public void apply(Collection<Book> savedBooks, Collection<Long> removedIds) {
+		synchronized (warmUpLock) {
+			if(changesDuringWarmUp != null) {
+				List<Book> saved = new ArrayList<>(savedBooks);
+				List<Long> removed = new ArrayList<>(removedIds);
+				changesDuringWarmUp.add( () -> applyChanges(saved, removed) );
+				return;
+			}
+		}
+		applyChanges(savedBooks, removedIds);
+	}
+
+	private void applyChanges(Collection<Book> savedBooks, Collection<Long> removedIds) {
+		savedBooks.forEach(this::write);
+		try {
+			for (Long id : removedIds) {
+				writer.deleteDocuments(new Term(ID, id.toString()));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		refresh();
+	}
+
+	/**
+	 * Busca os livros por relevância e, no empate, por id. Acima de 1000
+	 * resultados o total da página é um limite inferior, para não percorrer
+	 * todos os documentos. Cada página coleta todos os resultados anteriores a
+	 * ela, então a paginação por número vai só até MAX_RESULT_WINDOW
+	 * resultados; além deles, use searchAfter.
+	 */
+	public Page<Book> search(String text, Pageable pageRequest) {
+		if(pageRequest.getOffset() + pageRequest.getPageSize() > MAX_RESULT_WINDOW) {
+			throw new BusinessException("A busca por página vai até o resultado " + MAX_RESULT_WINDOW
+					+ "; use o parâmetro after para avançar além dele.");
+		}
+		List<String> terms = analyze(text);
+		if(terms.isEmpty()) {
+			return Page.empty(pageRequest);
+		}
+
+		int offset = (int) pageRequest.getOffset();
+		return withSearcher( searcher -> {
+			TopDocs topDocs = searcher.search(toQuery(terms), offset + pageRequest.getPageSize(), RELEVANCE);
+			StoredFields storedFields = searcher.storedFields();
+
+			List<Book> books = new ArrayList<>();
+			for (int i = offset; i < topDocs.scoreDocs.length; i++) {
+				books.add(toBook(storedFields.document(topDocs.scoreDocs[i].doc)));
+			}
+			return new PageImpl<>(books, pageRequest, topDocs.totalHits.value);
+		});
+	}
+
+	/**
+	 * Mesma busca de search, paginada pelo cursor da última página (null na
+	 * primeira): cada página coleta só os seus resultados, a qualquer
+	 * profundidade.
+	 */
+	public BookSearchResult searchAfter(String text, BookSearchCursor after, int size) {
+		if(size < 1 || size > MAX_RESULT_WINDOW) {
+			throw new BusinessException("O tamanho da página da busca deve estar entre 1 e " + MAX_RESULT_WINDOW + ".");
+		}
+		List<String> terms = analyze(text);
+		if(terms.isEmpty()) {
+			return new BookSearchResult(Collections.emptyList(), null, false);
+		}
+
+		return withSearcher( searcher -> {
+			int maxDoc = searcher.getIndexReader().maxDoc();
+			if(maxDoc == 0) {
+				return new BookSearchResult(Collections.emptyList(), null, false);
+			}
+			// o id é único: só o próprio livro do cursor empata com ele, e com o
+			// último número de documento ele nunca fica depois do cursor
+			FieldDoc afterDoc = after == null ? null
+					: new FieldDoc(maxDoc - 1, after.getScore(), new Object[] { after.getScore(), after.getBookId() });
+			TopDocs topDocs = searcher.searchAfter(afterDoc, toQuery(terms), size + 1, RELEVANCE);
+			StoredFields storedFields = searcher.storedFields();
+
+			int found = Math.min(size, topDocs.scoreDocs.length);
+			List<Book> books = new ArrayList<>(found);
+			for (int i = 0; i < found; i++) {
+				books.add(toBook(storedFields.document(topDocs.scoreDocs[i].doc)));
+			}
+			BookSearchCursor next = null;
+			if(found > 0) {
+				FieldDoc last = (FieldDoc) topDocs.scoreDocs[found - 1];
+				next = new BookSearchCursor((Float) last.fields[0], (Long) last.fields[1]);
+			}
+			return new BookSearchResult(books, next, topDocs.scoreDocs.length > size);
+		});
+	}
+
+	@PreDestroy
+	public void close() throws IOException {
+		searcherManager.close();
+		writer.close();
+		directory.close();
+	}
+
+	private <T> T withSearcher(SearcherFunction<T> search) {
+		try {
+			IndexSearcher searcher = searcherManager.acquire();
+			try {
+				return search.apply(searcher);
+			} finally {
+				searcherManager.release(searcher);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Query toQuery(List<String> terms) {
+		BooleanQuery.Builder query = new BooleanQuery.Builder();
+		for (String term : terms) {
+			BooleanQuery.Builder termQuery = new BooleanQuery.Builder();
+			for (String field : SEARCH_FIELDS) {
+				termQuery.add(new BoostQuery(new TermQuery(new Term(field, term)), 4f), Occur.SHOULD);
+				termQuery.add(new BoostQuery(new PrefixQuery(new Term(field, term)), 2f), Occur.SHOULD);
+				int maxEdits = maxEdits(term);
+				if(maxEdits > 0) {
+					termQuery.add(new FuzzyQuery(new Term(field, term), maxEdits, 1), Occur.SHOULD);
+				}
+			}
+			query.add(termQuery.build(), Occur.MUST);
+		}
+		return query.build();
+	}
+
+	private int maxEdits(String term) {
+		if(term.length() <= 2) {
+			return 0;
+		}
+		return term.length() <= 5 ? 1 : 2;
+	}
+
+	private List<String> analyze(String text) {
+		List<String> terms = new ArrayList<>();
+		if(!StringUtils.hasText(text)) {
+			return terms;
+		}
+
+		try (TokenStream stream = analyzer.tokenStream(TITLE, text)) {
+			CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+			stream.reset();
+			while (stream.incrementToken()) {
+				terms.add(term.toString());
+			}
+			stream.end();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return terms;
+	}
+
+	private void write(Book book) {
+		Document document = new Document();
+		document.add(new StringField(ID, book.getId().toString(), Store.YES));
+		document.add(new NumericDocValuesField(ID, book.getId()));
+		if(book.getTitle() != null) {
+			document.add(new TextField(TITLE, book.getTitle(), Store.YES));
+		}
+		if(book.getAuthor() != null) {
+			document.add(new TextField(AUTHOR, book.getAuthor(), Store.YES));
+		}
+		if(book.getIsbn() != null) {
+			document.add(new StoredField(ISBN, book.getIsbn()));
+		}
+
+		try {
+			writer.updateDocument(new Term(ID, book.getId().toString()), document);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void refresh() {
+		try {
+			searcherManager.maybeRefreshBlocking();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Book toBook(Document document) {
+		return Book.builder()
+				.id(Long.valueOf(document.get(ID)))
+				.title(document.get(TITLE))
+				.author(document.get(AUTHOR))
+				.isbn(document.get(ISBN))
+				.build();
+	}
+
+	@FunctionalInterface
+	private interface SearcherFunction<T> {
+
+		T apply(IndexSearcher searcher) throws IOException;
+
+	}
+
+	/**
+	 * Separa as palavras, descarta stopwords em português e remove maiúsculas
+	 * e acentos, tanto na indexação quanto na busca.
+	 */
+	static class BookAnalyzer extends Analyzer {
+
+		@Override
+		protected TokenStreamComponents createComponents(String fieldName) {
+			Tokenizer source = new StandardTokenizer();
+			TokenStream result = new LowerCaseFilter(source);
+			result = new StopFilter(result, PortugueseAnalyzer.getDefaultStopSet());
+			result = new ASCIIFoldingFilter(result);
+			return new TokenStreamComponents(source, result);
+		}
+
+		@Override
+		protected TokenStream normalize(String fieldName, TokenStream in) {
+			return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+		}
+
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.lucassilva.libraryapi.api.service.impl;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.lucassilva.libraryapi.model.entity.Book;
+
+/**
+ * Mantém o BookSearchIndex e o IsbnIndex em sincronia com as gravações de Book.
+ * As alterações de uma transação são acumuladas e aplicadas aos índices de uma
+ * só vez após o commit, de modo que um rollback não os deixa divergentes da base.
+ * Consultas de atualização em massa não passam por aqui.
+ */
+@Component
+@Profile("!reactive")
+public class BookSearchIndexListener {
+
+	private final ObjectProvider<BookSearchIndex> searchIndex;
+
+	private final ObjectProvider<IsbnIndex> isbnIndex;
+
+	public BookSearchIndexListener(ObjectProvider<BookSearchIndex> searchIndex, ObjectProvider<IsbnIndex> isbnIndex) {
+		this.searchIndex = searchIndex;
+		this.isbnIndex = isbnIndex;
+	}
+
+	@PostPersist
+	@PostUpdate
+	public void saved(Book book) {
+		record( changes -> {
+			changes.removedIds.remove(book.getId());
+			changes.savedBooks.put(book.getId(), book);
+		});
+	}
+
+	@PostRemove
+	public void removed(Book book) {
+		record( changes -> {
+			changes.savedBooks.remove(book.getId());
+			changes.removedIds.add(book.getId());
+		});
+	}
+
+	private void record(Consumer<PendingChanges> change) {
+		BookSearchIndex index = searchIndex.getIfAvailable();
+		IsbnIndex isbns = isbnIndex.getIfAvailable();
+		if(index == null && isbns == null) {
+			return;
+		}
+
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			PendingChanges changes = new PendingChanges(index, isbns, this);
+			change.accept(changes);
+			changes.afterCommit();
+			return;
+		}
+
+		PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+		if(changes == null) {
+			changes = new PendingChanges(index, isbns, this);
+			TransactionSynchronizationManager.bindResource(this, changes);
+			TransactionSynchronizationManager.registerSynchronization(changes);
+		}
+		change.accept(changes);
+	}
+
+	private static class PendingChanges implements TransactionSynchronization {
+
+		private final BookSearchIndex index;
+
+		private final IsbnIndex isbns;
+
+		private final Object key;
+
+		private final Map<Long, Book> savedBooks = new LinkedHashMap<>();
+
+		private final Set<Long> removedIds = new HashSet<>();
+
+		PendingChanges(BookSearchIndex index, IsbnIndex isbns, Object key) {
+			this.index = index;
+			this.isbns = isbns;
+			this.key = key;
+		}
+
+		@Override
+		public void afterCommit() {
+			if(isbns != null) {
+				isbns.apply(savedBooks.values(), removedIds);
+			}
+			if(index != null) {
+				index.apply(savedBooks.values(), removedIds);
+			}
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(key);
+		}
+
+	}
+
+}
@@ -1,53 +1,575 @@
 package com.lucassilva.libraryapi.api.service.impl;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
+import com.lucassilva.libraryapi.api.repository.BookEventRepository;
 import com.lucassilva.libraryapi.api.repository.BookRepository;
+import com.lucassilva.libraryapi.api.repository.BookTombstoneRepository;
+import com.lucassilva.libraryapi.api.service.BookChangeCursor;
+import com.lucassilva.libraryapi.api.service.BookChanges;
+import com.lucassilva.libraryapi.api.service.BookSearchCursor;
+import com.lucassilva.libraryapi.api.service.BookSearchResult;
 import com.lucassilva.libraryapi.api.service.BookService;
+import com.lucassilva.libraryapi.datasource.ReplicaRoutingDataSource;
 import com.lucassilva.libraryapi.exception.BusinessException;
+import com.lucassilva.libraryapi.model.Isbn;
 import com.lucassilva.libraryapi.model.entity.Book;
+import com.lucassilva.libraryapi.model.entity.BookEvent;
+import com.lucassilva.libraryapi.model.entity.BookEvent.Type;
+import com.lucassilva.libraryapi.model.entity.BookTombstone;
+
+import io.micrometer.core.annotation.Timed;
 
 @Service
+@Profile("!reactive")
 public class BookServiceImpl implements BookService {
 
+	public static final String BOOKS_CACHE = "books";
+	
+	static final String SERVICE_TIMER = "library.books.service";
+
 	private BookRepository repository;
 	
-	public BookServiceImpl(BookRepository repository) {
+	private IsbnBloomFilter isbnFilter;
+	
+	private BookSearchIndex searchIndex;
+	
+	private BookEventRepository eventRepository;
+	
+	private BookTombstoneRepository tombstoneRepository;
+	
+	private BookSearchIndexListener searchIndexListener;
+	
+	private IsbnIndex isbnIndex;
+	
+	private TransactionTemplate transactionTemplate;
+	
+	private final SingleFlight<Long, Optional<Book>> bookLoads = new SingleFlight<>();
+	
+	@Value("${library.books.sync.settle-lag-ms:5000}")
+	private long syncSettleLagMs;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	public BookServiceImpl(BookRepository repository, IsbnBloomFilter isbnFilter, BookSearchIndex searchIndex, BookEventRepository eventRepository,
+			BookTombstoneRepository tombstoneRepository, BookSearchIndexListener searchIndexListener, IsbnIndex isbnIndex,
+			PlatformTransactionManager transactionManager) {
 		this.repository = repository;
+		this.isbnFilter = isbnFilter;
+		this.searchIndex = searchIndex;
+		this.eventRepository = eventRepository;
+		this.tombstoneRepository = tombstoneRepository;
+		this.searchIndexListener = searchIndexListener;
+		this.isbnIndex = isbnIndex;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
 	}
  
+	/**
+	 * Grava o livro sem verificar o isbn antes: a restrição única da base
+	 * decide atomicamente, mesmo com criações simultâneas do mesmo isbn, e a
+	 * violação é convertida no erro de negócio. O insert é enviado aqui, e não
+	 * no commit, para que a violação seja tratada neste método. Um ISBN válido
+	 * é gravado na forma canônica (Isbn.canonical).
+	 */
 	@Override
+	@Timed(SERVICE_TIMER)
+	@Transactional
 	public Book save(Book book) {
-		if(repository.existsByIsbn(book.getIsbn())) {
-			throw new BusinessException("Isbn já cadastrado.");
+		book.setIsbn(Isbn.canonical(book.getIsbn()));
+		Book savedBook;
+		try {
+			savedBook = repository.saveAndFlush(book);
+		} catch (DataIntegrityViolationException e) {
+			if(violates(e, Book.ISBN_CONSTRAINT)) {
+				throw new BusinessException("Isbn já cadastrado.");
+			}
+			throw e;
 		}
 		
-		return repository.save(book);
+		eventRepository.save(BookEvent.of(Type.CREATED, savedBook));
+		isbnFilter.put(savedBook.getIsbn());
+		
+		return savedBook;
 	}
 
+	/**
+	 * Leituras simultâneas do mesmo id que não encontram o livro no cache
+	 * compartilham uma única consulta à base. Sem transação aqui: o findById já
+	 * abre a sua, somente leitura, e quem aguarda a carga de outra chamada não
+	 * prende uma conexão enquanto isso. A carga lê do primário mesmo com
+	 * réplicas: o resultado fica no cache, e uma réplica atrasada deixaria nele
+	 * o livro e o ETag antigos até a entrada expirar.
+	 */
 	@Override
+	@Timed(SERVICE_TIMER)
+	@Cacheable(cacheNames = BOOKS_CACHE, unless = "#result == null")
 	public Optional<Book> getById(Long id) {
-		return repository.findById(id);
+		return bookLoads.execute(id, key -> ReplicaRoutingDataSource.readFromPrimary( () -> repository.findById(key) ));
+	}
+
+	/**
+	 * Id do livro pelo ISBN-10 ou ISBN-13, com ou sem hífens e espaços,
+	 * respondido pelo IsbnIndex sem consultar a base. Até o fim da carga
+	 * inicial do índice, consulta a base comparando o isbn como texto, na forma
+	 * informada e na de 13 dígitos.
+	 */
+	@Override
+	@Timed(SERVICE_TIMER)
+	public OptionalLong findIdByIsbn(String isbn) {
+		long parsed = Isbn.parse(isbn);
+		if(parsed == Isbn.INVALID) {
+			throw new BusinessException("Isbn inválido.");
+		}
+		
+		if(!isbnIndex.isReady()) {
+			List<Long> ids = repository.findIdsByIsbnIn(Arrays.asList(isbn, Isbn.format(parsed)));
+			return ids.isEmpty() ? OptionalLong.empty() : OptionalLong.of(ids.get(0));
+		}
+		
+		long id = isbnIndex.findId(parsed);
+		return id == 0 ? OptionalLong.empty() : OptionalLong.of(id);
 	}
 
+	/**
+	 * Carrega os livros com uma única consulta. A lista retornada segue a ordem
+	 * da entrada e contém null para os ids inexistentes.
+	 */
 	@Override
+	@Timed(SERVICE_TIMER)
+	@Transactional(readOnly = true)
+	public List<Book> getAllById(List<Long> ids) {
+		Map<Long, Book> books = new HashMap<>();
+		repository.findAllById(ids).forEach( book -> books.put(book.getId(), book) );
+		
+		return ids.stream()
+				.map(books::get)
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	@Timed(SERVICE_TIMER)
+	@CacheEvict(cacheNames = BOOKS_CACHE, key = "#book.id")
+	@Transactional
 	public void delete(Book book) {
 		if(book == null || book.getId() == null) {
 			throw new IllegalArgumentException("Livro não pode ser null");
 		}
 			
 		this.repository.delete(book);
+		eventRepository.save(BookEvent.of(Type.DELETED, book));
+		tombstoneRepository.save(BookTombstone.builder()
+				.bookId(book.getId())
+				.isbn(book.getIsbn())
+				.deletedAt(Instant.now().truncatedTo(ChronoUnit.MICROS))
+				.build());
 	}
 
 	@Override
+	@Timed(SERVICE_TIMER)
+	@CacheEvict(cacheNames = BOOKS_CACHE, key = "#book.id")
+	@Transactional
 	public Book update(Book book) {
 		if(book == null || book.getId() == null) {
 			throw new IllegalArgumentException("Livro não pode ser null");
 		}
 		
-		return this.repository.save(book);
+		book.setIsbn(Isbn.canonical(book.getIsbn()));
+		Book updatedBook = this.repository.save(book);
+		eventRepository.save(BookEvent.of(Type.UPDATED, updatedBook));
+		isbnFilter.put(updatedBook.getIsbn());
+		
+		return updatedBook;
+	}
+
+	/**
+	 * Remove o livro sem carregá-lo: a remoção para a sincronização é gravada
+	 * com um insert ... select que copia o isbn da linha do livro, e só então
+	 * o livro é removido. Quando o insert não grava nada, o livro não existe.
+	 * Em uma remoção concorrente do mesmo livro, o insert que chega depois
+	 * espera o primeiro e viola a chave da remoção gravada, ou não encontra
+	 * mais o livro; nos dois casos a transação é desfeita sem deixar uma
+	 * segunda remoção gravada. O evento DELETED gravado aqui leva apenas o id
+	 * do livro. Retorna false quando o livro não existe.
+	 */
+	@Override
+	@Timed(SERVICE_TIMER)
+	@CacheEvict(cacheNames = BOOKS_CACHE, key = "#id")
+	@Transactional
+	public boolean deleteById(Long id) {
+		if(id == null) {
+			throw new IllegalArgumentException("Id do livro não pode ser null");
+		}
+		
+		Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+		try {
+			if(tombstoneRepository.insertFromBook(id, now) == 0) {
+				return false;
+			}
+		} catch (DataIntegrityViolationException e) {
+			// a única restrição do insert é a chave book_id: outra remoção do livro venceu
+			TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+			return false;
+		}
+		if(repository.deleteBookById(id) == 0) {
+			TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+			return false;
+		}
+		evictAfterCompletion(id);
+		
+		eventRepository.save(BookEvent.builder().type(Type.DELETED).bookId(id).occurredAt(now).build());
+		searchIndexListener.removed(Book.builder().id(id).build());
+		return true;
+	}
+
+	/**
+	 * Substitui título e autor do livro com um único update, sem carregar o
+	 * livro antes. Com expectedVersions, só atualiza se a versão atual estiver
+	 * entre as informadas; caso contrário lança OptimisticLockingFailureException.
+	 * Retorna vazio quando o livro não existe.
+	 */
+	@Override
+	@Timed(SERVICE_TIMER)
+	@CacheEvict(cacheNames = BOOKS_CACHE, key = "#id")
+	@Transactional
+	public Optional<Book> update(Long id, Book changes, Collection<Long> expectedVersions) {
+		validateChanges(id, changes);
+		if(!StringUtils.hasText(changes.getTitle()) || !StringUtils.hasText(changes.getAuthor())) {
+			throw new BusinessException("Título e autor não podem ser vazios.");
+		}
+		
+		Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+		int updated = repository.updateContent(id, changes.getTitle(), changes.getAuthor(), now,
+				expectedVersions == null, versions(expectedVersions));
+		
+		return updated(id, updated, expectedVersions);
+	}
+
+	/**
+	 * Como update, mas altera apenas os campos informados (não nulos).
+	 */
+	@Override
+	@Timed(SERVICE_TIMER)
+	@CacheEvict(cacheNames = BOOKS_CACHE, key = "#id")
+	@Transactional
+	public Optional<Book> patch(Long id, Book changes, Collection<Long> expectedVersions) {
+		validateChanges(id, changes);
+		if(changes.getTitle() == null && changes.getAuthor() == null) {
+			throw new BusinessException("Informe ao menos um campo para alterar.");
+		}
+		if(isBlank(changes.getTitle()) || isBlank(changes.getAuthor())) {
+			throw new BusinessException("Título e autor não podem ser vazios.");
+		}
+		
+		Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+		int updated = repository.patchContent(id, changes.getTitle(), changes.getAuthor(), now,
+				expectedVersions == null, versions(expectedVersions));
+		
+		return updated(id, updated, expectedVersions);
+	}
+	
+	private void validateChanges(Long id, Book changes) {
+		if(id == null || changes == null) {
+			throw new IllegalArgumentException("Livro não pode ser null");
+		}
+		if(changes.getIsbn() != null) {
+			throw new BusinessException("O isbn do livro não pode ser alterado.");
+		}
+	}
+	
+	private Collection<Long> versions(Collection<Long> expectedVersions) {
+		return expectedVersions == null ? Collections.emptyList() : expectedVersions;
+	}
+	
+	/**
+	 * Após o update, lê o livro de volta para a resposta, a outbox e o índice
+	 * de busca. Sem linhas atualizadas, só consulta a base para distinguir um
+	 * livro inexistente de uma versão desatualizada.
+	 */
+	private Optional<Book> updated(Long id, int updated, Collection<Long> expectedVersions) {
+		if(updated == 0) {
+			if(expectedVersions != null && repository.existsById(id)) {
+				throw new OptimisticLockingFailureException("O livro " + id + " não está em nenhuma das versões informadas.");
+			}
+			return Optional.empty();
+		}
+		
+		evictAfterCompletion(id);
+		Book book = repository.findCurrentById(id).orElseThrow(IllegalStateException::new);
+		eventRepository.save(BookEvent.of(Type.UPDATED, book));
+		searchIndexListener.saved(book);
+		return Optional.of(book);
+	}
+
+	/**
+	 * Remove o livro e as consultas de livros do cache de segundo nível, pela
+	 * API de cache do JPA, ao fim da transação que o alterou com um comando em
+	 * massa. O Hibernate já invalida essas regiões nesses comandos; a remoção
+	 * explícita não depende desse comportamento do provedor.
+	 */
+	private void evictAfterCompletion(Long id) {
+		Cache cache = entityManager.getEntityManagerFactory().getCache();
+		Runnable evict = () -> {
+			cache.evict(Book.class, id);
+			cache.unwrap(org.hibernate.Cache.class).evictQueryRegion(Book.QUERY_CACHE_REGION);
+		};
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			evict.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				evict.run();
+			}
+		});
+	}
+
+	/**
+	 * Persiste os livros em lote. Os ISBNs válidos são verificados no IsbnIndex,
+	 * sem consultar a base; os demais isbns (e todos, até o fim da carga do
+	 * índice) com uma única consulta dos que o filtro de isbns não consegue
+	 * descartar. O índice e o filtro são desta instância e só mudam após o
+	 * commit: se outra instância ou requisição gravou um dos isbns nesse meio
+	 * tempo, a restrição única desfaz o lote, e os livros são gravados um a um,
+	 * cada um na sua transação, recusando os que a violam.
+	 * A lista retornada segue a ordem da entrada e contém null para os livros
+	 * recusados por isbn já cadastrado (na base ou repetido no próprio lote).
+	 * Deve ser chamado fora de uma transação, para que um lote desfeito não
+	 * desfaça também a do chamador.
+	 */
+	@Override
+	@Timed(SERVICE_TIMER)
+	public List<Book> saveAll(List<Book> books) {
+		books.forEach( book -> book.setIsbn(Isbn.canonical(book.getIsbn())) );
+		try {
+			return transactionTemplate.execute( status -> insertAll(books) );
+		} catch (DataIntegrityViolationException e) {
+			if(!violates(e, Book.ISBN_CONSTRAINT)) {
+				throw e;
+			}
+		}
+		
+		List<Book> result = new ArrayList<>(books.size());
+		for (Book book : books) {
+			// id e versão atribuídos na transação desfeita
+			book.setId(null);
+			book.setVersion(null);
+			try {
+				result.add(transactionTemplate.execute( status -> insertAll(Collections.singletonList(book)).get(0) ));
+			} catch (DataIntegrityViolationException e) {
+				if(!violates(e, Book.ISBN_CONSTRAINT)) {
+					throw e;
+				}
+				result.add(null);
+			}
+		}
+		return result;
+	}
+	
+	private List<Book> insertAll(List<Book> books) {
+		Set<String> usedIsbns = new HashSet<>();
+		Set<String> uncheckedIsbns = new HashSet<>();
+		for (Book book : books) {
+			long parsed = Isbn.parse(book.getIsbn());
+			if(parsed != Isbn.INVALID && isbnIndex.isReady()) {
+				if(isbnIndex.findId(parsed) != 0) {
+					usedIsbns.add(book.getIsbn());
+				}
+			} else if(isbnFilter.mightContain(book.getIsbn())) {
+				uncheckedIsbns.add(book.getIsbn());
+			}
+		}
+		if(!uncheckedIsbns.isEmpty()) {
+			usedIsbns.addAll(repository.findExistingIsbns(uncheckedIsbns));
+		}
+		
+		List<Book> accepted = new ArrayList<>();
+		for (Book book : books) {
+			if(usedIsbns.add(book.getIsbn())) {
+				accepted.add(book);
+			}
+		}
+		
+		List<Book> savedBooks = repository.saveAll(accepted);
+		eventRepository.saveAll(savedBooks.stream()
+				.map( book -> BookEvent.of(Type.CREATED, book) )
+				.collect(Collectors.toList()));
+		Iterator<Book> saved = savedBooks.iterator();
+		accepted.forEach( book -> isbnFilter.put(book.getIsbn()) );
+		
+		List<Book> result = new ArrayList<>(books.size());
+		int next = 0;
+		for (Book book : books) {
+			if(next < accepted.size() && accepted.get(next) == book) {
+				result.add(saved.next());
+				next++;
+			} else {
+				result.add(null);
+			}
+		}
+		
+		return result;
+	}
+
+	@Override
+	@Timed(SERVICE_TIMER)
+	@Transactional(readOnly = true)
+	public Page<Book> find(Book filter, Pageable pageRequest) {
+		return repository.search(
+				emptyToNull(filter.getTitle()),
+				emptyToNull(filter.getAuthor()),
+				emptyToNull(Isbn.canonical(filter.getIsbn())),
+				pageRequest);
+	}
+
+	/**
+	 * Paginação por chave (keyset): retorna os livros com id maior que afterId,
+	 * ordenados por id, sem contar o total de registros.
+	 */
+	@Override
+	@Timed(SERVICE_TIMER)
+	@Transactional(readOnly = true)
+	public Slice<Book> findAfter(Book filter, Long afterId, Pageable pageRequest) {
+		return repository.searchAfter(
+				afterId,
+				emptyToNull(filter.getTitle()),
+				emptyToNull(filter.getAuthor()),
+				emptyToNull(Isbn.canonical(filter.getIsbn())),
+				PageRequest.of(0, pageRequest.getPageSize(), Sort.by("id")));
+	}
+	
+	/**
+	 * Busca textual por palavras do título ou do autor, ordenada por relevância,
+	 * respondida pelo índice de busca sem consultar a base.
+	 */
+	@Override
+	@Timed(SERVICE_TIMER)
+	public Page<Book> search(String text, Pageable pageRequest) {
+		return searchIndex.search(text, pageRequest);
+	}
+	
+	/**
+	 * Como search, paginada por cursor para ir além do limite da paginação
+	 * por número de página.
+	 */
+	@Override
+	@Timed(SERVICE_TIMER)
+	public BookSearchResult searchAfter(String text, BookSearchCursor after, int size) {
+		return searchIndex.searchAfter(text, after, size);
+	}
+	
+	/**
+	 * Alterações depois do cursor, lidas pelos índices de lastModified e de
+	 * deletedAt, de modo que o custo acompanha o número de alterações e não o
+	 * tamanho do catálogo. Alterações dos últimos syncSettleLagMs ficam para a
+	 * próxima chamada: o horário é atribuído antes do commit, então uma
+	 * transação ainda aberta pode tornar visível depois uma linha com horário
+	 * anterior ao do cursor já entregue.
+	 */
+	@Override
+	@Timed(SERVICE_TIMER)
+	@Transactional(readOnly = true)
+	public BookChanges findChanges(BookChangeCursor since, int limit) {
+		Instant until = Instant.now().minus(Duration.ofMillis(syncSettleLagMs));
+		PageRequest page = PageRequest.of(0, limit);
+		
+		List<Book> books = repository.findModifiedSince(since.getBookModified(), since.getBookId(), until, page);
+		List<BookTombstone> tombstones = tombstoneRepository.findDeletedSince(since.getTombstoneDeleted(), since.getTombstoneId(), until, page);
+		
+		BookChangeCursor next = since;
+		if(!books.isEmpty()) {
+			Book last = books.get(books.size() - 1);
+			next = new BookChangeCursor(last.getLastModified(), last.getId(), next.getTombstoneDeleted(), next.getTombstoneId());
+		}
+		if(!tombstones.isEmpty()) {
+			BookTombstone last = tombstones.get(tombstones.size() - 1);
+			next = new BookChangeCursor(next.getBookModified(), next.getBookId(), last.getDeletedAt(), last.getBookId());
+		}
+		
+		return new BookChanges(books, tombstones, next, books.size() == limit || tombstones.size() == limit);
+	}
+	
+	/**
+	 * Percorre todos os livros a partir de um cursor da base, desanexando cada
+	 * entidade após o uso para que o consumo de memória não cresça com o catálogo.
+	 */
+	@Override
+	@Timed(SERVICE_TIMER)
+	@Transactional(readOnly = true)
+	public void exportAll(Consumer<Book> action) {
+		try (Stream<Book> books = repository.streamAll()) {
+			books.forEach( book -> {
+				action.accept(book);
+				entityManager.detach(book);
+			});
+		}
+	}
+	
+	private String emptyToNull(String value) {
+		return StringUtils.hasText(value) ? value : null;
+	}
+	
+	/**
+	 * Indica se a falha foi causada pela restrição informada. O nome vem do
+	 * driver e muda entre bancos (no H2, por exemplo, "PUBLIC.UK_BOOK_ISBN_INDEX_1
+	 * ON ..."), por isso a comparação por trecho e sem caixa.
+	 */
+	private boolean violates(DataIntegrityViolationException exception, String constraint) {
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			if(cause instanceof ConstraintViolationException) {
+				String name = ((ConstraintViolationException) cause).getConstraintName();
+				return name != null && name.toLowerCase(Locale.ROOT).contains(constraint);
+			}
+		}
+		return false;
+	}
+	
+	private boolean isBlank(String value) {
+		return value != null && !StringUtils.hasText(value);
 	}
 
 }
@@ -0,0 +1,58 @@
+package com.lucassilva.libraryapi.api.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.lucassilva.libraryapi.api.repository.BookRepository;
+
+/**
+ * Índice probabilístico dos isbns cadastrados. Um resultado negativo é definitivo
+ * e dispensa a consulta na base; um positivo pode ser falso e deve ser confirmado.
+ * Até o carregamento inicial terminar, todo isbn é tratado como possivelmente cadastrado.
+ */
+@Component
+@Profile("!reactive")
+public class IsbnBloomFilter {
+
+	private final BookRepository repository;
+	
+	private final BloomFilter<CharSequence> filter;
+	
+	private volatile boolean ready;
+	
+	public IsbnBloomFilter(BookRepository repository,
+			@Value("${library.books.isbn-filter.expected-insertions:1000000}") int expectedInsertions,
+			@Value("${library.books.isbn-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+		this.repository = repository;
+		this.filter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, falsePositiveProbability);
+	}
+	
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void warmUp() {
+		try (Stream<String> isbns = repository.streamAllIsbns()) {
+			isbns.forEach(this::put);
+		}
+		ready = true;
+	}
+	
+	public boolean mightContain(String isbn) {
+		return !ready || isbn == null || filter.mightContain(isbn);
+	}
+	
+	public void put(String isbn) {
+		if(isbn != null) {
+			filter.put(isbn);
+		}
+	}
+	
+}
@@ -0,0 +1,152 @@
+package com.lucassilva.libraryapi.api.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.lucassilva.libraryapi.api.repository.BookRepository;
+import com.lucassilva.libraryapi.model.Isbn;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+/**
+ * Índice em memória do ISBN-13 (Isbn.parse) para o id de cada livro, em mapas
+ * de long para long, para responder buscas e verificações por isbn sem
+ * consultar a base. Livros com isbn que não é um ISBN válido ficam de fora.
+ * O índice é carregado da base na inicialização e atualizado pelo
+ * BookSearchIndexListener após cada commit; até o fim da carga inicial,
+ * isReady é false e as consultas devem ir à base. As alterações recebidas
+ * durante a carga são guardadas e aplicadas depois dela, para que a leitura
+ * da base, anterior a elas, não traga de volta um livro removido ou um isbn
+ * antigo.
+ * As leituras não bloqueiam: leem os mapas de forma otimista e só repetem, com
+ * a trava de leitura, se uma gravação aconteceu no meio.
+ */
+@Component
+@Profile("!reactive")
+public class IsbnIndex {
+
+	private final BookRepository repository;
+
+	private final LongLongHashMap idsByIsbn;
+
+	private final LongLongHashMap isbnsById;
+
+	private final StampedLock lock = new StampedLock();
+
+	/**
+	 * Alterações recebidas durante a carga inicial; null depois dela. Acessada
+	 * só com a trava de escrita.
+	 */
+	private List<Runnable> changesDuringWarmUp = new ArrayList<>();
+
+	private volatile boolean ready;
+
+	public IsbnIndex(BookRepository repository,
+			@Value("${library.books.isbn-index.expected-size:1024}") int expectedSize) {
+		this.repository = repository;
+		this.idsByIsbn = new LongLongHashMap(expectedSize);
+		this.isbnsById = new LongLongHashMap(expectedSize);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void warmUp() {
+		try (Stream<Object[]> books = repository.streamAllIdsAndIsbns()) {
+			books.forEach( book -> {
+				long stamp = lock.writeLock();
+				try {
+					put((Long) book[0], (String) book[1]);
+				} finally {
+					lock.unlockWrite(stamp);
+				}
+			});
+		}
+
+		long stamp = lock.writeLock();
+		try {
+			changesDuringWarmUp.forEach(Runnable::run);
+			changesDuringWarmUp = null;
+			ready = true;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Id do livro com o ISBN-13 informado, ou zero se não houver.
+	 */
+	public long findId(long isbn) {
+		if(isbn == Isbn.INVALID) {
+			return 0;
+		}
+
+		long stamp = lock.tryOptimisticRead();
+		long id = idsByIsbn.get(isbn);
+		if(!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				id = idsByIsbn.get(isbn);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Aplica ao índice os livros gravados e removidos.
+	 */
+	public void apply(Collection<Book> savedBooks, Collection<Long> removedIds) {
+		if(savedBooks.isEmpty() && removedIds.isEmpty()) {
+			return;
+		}
+
+		long stamp = lock.writeLock();
+		try {
+			if(changesDuringWarmUp != null) {
+				List<Book> saved = new ArrayList<>(savedBooks);
+				List<Long> removed = new ArrayList<>(removedIds);
+				changesDuringWarmUp.add( () -> applyChanges(saved, removed) );
+			} else {
+				applyChanges(savedBooks, removedIds);
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	private void applyChanges(Collection<Book> savedBooks, Collection<Long> removedIds) {
+		removedIds.forEach(this::remove);
+		savedBooks.forEach( book -> put(book.getId(), book.getIsbn()) );
+	}
+
+	private void put(long id, String isbn) {
+		remove(id);
+		long parsed = Isbn.parse(isbn);
+		if(parsed != Isbn.INVALID) {
+			idsByIsbn.put(parsed, id);
+			isbnsById.put(id, parsed);
+		}
+	}
+
+	private void remove(long id) {
+		long isbn = isbnsById.remove(id);
+		if(isbn != 0 && idsByIsbn.get(isbn) == id) {
+			idsByIsbn.remove(isbn);
+		}
+	}
+
+}
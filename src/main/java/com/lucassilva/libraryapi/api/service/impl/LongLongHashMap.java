@@ -0,0 +1,144 @@
+package com.lucassilva.libraryapi.api.service.impl;
+
+/**
+ * Mapa de long para long com endereçamento aberto (sondagem linear) em um
+ * único long[], chaves e valores intercalados, sem objetos por entrada nem
+ * boxing. Zero é reservado: não pode ser chave nem valor, e get retorna zero
+ * para chaves ausentes. As remoções deslocam as entradas seguintes em vez de
+ * deixar marcas, de modo que a sondagem nunca passa por posições mortas.
+ * Não é thread-safe; o IsbnIndex controla o acesso.
+ */
+class LongLongHashMap {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] table;
+
+	private int mask;
+
+	private int size;
+
+	LongLongHashMap(int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Valor da chave, ou zero se ela não estiver no mapa.
+	 */
+	long get(long key) {
+		long[] table = this.table;
+		int mask = (table.length >> 1) - 1;
+		for (int slot = slot(key, mask), probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+			long current = table[slot << 1];
+			if(current == key) {
+				return table[(slot << 1) + 1];
+			}
+			if(current == 0) {
+				return 0;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Associa o valor à chave, retornando o valor anterior ou zero.
+	 */
+	long put(long key, long value) {
+		if(key == 0 || value == 0) {
+			throw new IllegalArgumentException("Chave e valor não podem ser zero");
+		}
+
+		int slot = slot(key, mask);
+		while (true) {
+			long current = table[slot << 1];
+			if(current == key) {
+				long previous = table[(slot << 1) + 1];
+				table[(slot << 1) + 1] = value;
+				return previous;
+			}
+			if(current == 0) {
+				break;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if((size + 1) * 2 > mask + 1) {
+			grow();
+			return put(key, value);
+		}
+		table[slot << 1] = key;
+		table[(slot << 1) + 1] = value;
+		size++;
+		return 0;
+	}
+
+	/**
+	 * Remove a chave, retornando o valor removido ou zero.
+	 */
+	long remove(long key) {
+		int slot = slot(key, mask);
+		while (true) {
+			long current = table[slot << 1];
+			if(current == 0) {
+				return 0;
+			}
+			if(current == key) {
+				break;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		long removed = table[(slot << 1) + 1];
+		int hole = slot;
+		int next = (slot + 1) & mask;
+		while (table[next << 1] != 0) {
+			int home = slot(table[next << 1], mask);
+			// a entrada só pode ocupar o buraco se ele estiver entre a posição
+			// de origem dela e a posição atual, considerando a volta da tabela
+			if(((next - home) & mask) >= ((next - hole) & mask)) {
+				table[hole << 1] = table[next << 1];
+				table[(hole << 1) + 1] = table[(next << 1) + 1];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		table[hole << 1] = 0;
+		table[(hole << 1) + 1] = 0;
+		size--;
+		return removed;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private void grow() {
+		long[] old = table;
+		allocate((mask + 1) * 2);
+		size = 0;
+		for (int i = 0; i < old.length; i += 2) {
+			if(old[i] != 0) {
+				put(old[i], old[i + 1]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		table = new long[capacity * 2];
+		mask = capacity - 1;
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize * 2L) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private static int slot(long key, int mask) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+}
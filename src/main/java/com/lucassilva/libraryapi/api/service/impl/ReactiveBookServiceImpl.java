@@ -0,0 +1,157 @@
+package com.lucassilva.libraryapi.api.service.impl;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.lucassilva.libraryapi.api.repository.LikePatterns;
+import com.lucassilva.libraryapi.api.repository.ReactiveBookRepository;
+import com.lucassilva.libraryapi.api.service.ReactiveBookService;
+import com.lucassilva.libraryapi.exception.BusinessException;
+import com.lucassilva.libraryapi.model.Isbn;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@Profile("reactive")
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+
+	private ReactiveBookRepository repository;
+	
+	public ReactiveBookServiceImpl(ReactiveBookRepository repository) {
+		this.repository = repository;
+	}
+	
+	@Override
+	public Mono<Book> save(Book book) {
+		book.setIsbn(Isbn.canonical(book.getIsbn()));
+		return repository.insert(book)
+				.onErrorMap( e -> e instanceof DataIntegrityViolationException && violates(e, Book.ISBN_CONSTRAINT),
+						e -> new BusinessException("Isbn já cadastrado.") );
+	}
+
+	@Override
+	public Mono<Book> getById(Long id) {
+		return repository.findById(id);
+	}
+
+	@Override
+	public Mono<Boolean> deleteById(Long id, Collection<Long> expectedVersions) {
+		if(id == null) {
+			return Mono.error(new IllegalArgumentException("Id do livro não pode ser null"));
+		}
+		
+		return repository.deleteById(id, expectedVersions)
+				.flatMap( deleted -> deleted > 0 ? Mono.just(true) : checkVersions(id, expectedVersions).thenReturn(false) );
+	}
+
+	@Override
+	public Mono<Book> update(Long id, Book changes, Collection<Long> expectedVersions) {
+		if(id == null || changes == null) {
+			return Mono.error(new IllegalArgumentException("Livro não pode ser null"));
+		}
+		if(changes.getIsbn() != null) {
+			return Mono.error(new BusinessException("O isbn do livro não pode ser alterado."));
+		}
+		if(!StringUtils.hasText(changes.getTitle()) || !StringUtils.hasText(changes.getAuthor())) {
+			return Mono.error(new BusinessException("Título e autor não podem ser vazios."));
+		}
+		
+		Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+		return repository.updateContent(id, changes.getTitle(), changes.getAuthor(), now, expectedVersions)
+				.flatMap( updated -> updated > 0 ? repository.findById(id) : checkVersions(id, expectedVersions).then(Mono.empty()) );
+	}
+
+	@Override
+	public Mono<Page<Book>> find(Book filter, Pageable pageRequest) {
+		Criteria criteria = filterCriteria(filter);
+		
+		Mono<List<Book>> content = repository.findAll(criteria, pageRequest).collectList();
+		Mono<Long> total = repository.count(criteria);
+		
+		return Mono.zip(content, total)
+				   .map( result -> new PageImpl<>(result.getT1(), pageRequest, result.getT2()) );
+	}
+
+	/**
+	 * Paginação por chave (keyset): busca um registro a mais que o tamanho da
+	 * página apenas para saber se existe uma próxima.
+	 */
+	@Override
+	public Mono<Slice<Book>> findAfter(Book filter, Long afterId, Pageable pageRequest) {
+		int size = pageRequest.getPageSize();
+		Criteria criteria = Criteria.where("id").greaterThan(afterId).and(filterCriteria(filter));
+		
+		return repository.findAll(criteria, Sort.by("id"), size + 1)
+				.collectList()
+				.map( books -> {
+					boolean hasNext = books.size() > size;
+					List<Book> content = hasNext ? books.subList(0, size) : books;
+					return new SliceImpl<>(content, Pageable.ofSize(size), hasNext);
+				});
+	}
+
+	@Override
+	public Flux<Book> exportAll() {
+		return repository.streamAll();
+	}
+	
+	private Criteria filterCriteria(Book filter) {
+		Criteria criteria = Criteria.empty();
+		if(StringUtils.hasText(filter.getTitle())) {
+			criteria = criteria.and("title").like(LikePatterns.startsWith(filter.getTitle()));
+		}
+		if(StringUtils.hasText(filter.getAuthor())) {
+			criteria = criteria.and("author").like(LikePatterns.startsWith(filter.getAuthor()));
+		}
+		if(StringUtils.hasText(filter.getIsbn())) {
+			criteria = criteria.and("isbn").is(Isbn.canonical(filter.getIsbn()));
+		}
+		return criteria;
+	}
+	
+	/**
+	 * Chamado quando o comando condicional não alterou nada: se o livro existe,
+	 * a versão atual não estava entre as informadas.
+	 */
+	private Mono<Void> checkVersions(Long id, Collection<Long> expectedVersions) {
+		if(expectedVersions == null) {
+			return Mono.empty();
+		}
+		return repository.existsById(id)
+				.flatMap( exists -> exists
+						? Mono.error(new OptimisticLockingFailureException("O livro " + id + " não está em nenhuma das versões informadas."))
+						: Mono.empty() );
+	}
+	
+	/**
+	 * O R2DBC não expõe o nome da restrição violada como o Hibernate; ele só
+	 * aparece na mensagem do banco.
+	 */
+	private boolean violates(Throwable exception, String constraint) {
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			if(cause.getMessage() != null && cause.getMessage().toLowerCase(Locale.ROOT).contains(constraint)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.lucassilva.libraryapi.api.service.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Agrupa chamadas simultâneas com a mesma chave em uma única execução: a
+ * primeira executa a carga e as demais, que chegam enquanto ela está em
+ * andamento, aguardam e recebem o mesmo resultado (ou a mesma exceção), a
+ * mesma instância que o cache guarda e entrega depois, e por isso tratada
+ * como somente leitura.
+ * Nada é guardado depois que a carga termina; a chamada seguinte executa de
+ * novo. O mapa de chamadas em andamento não usa locks: a disputa por uma
+ * chave se resolve com um único putIfAbsent.
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	
+	public V execute(K key, Function<? super K, ? extends V> loader) {
+		CompletableFuture<V> call = new CompletableFuture<>();
+		CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+		if(running != null) {
+			return await(running);
+		}
+		
+		try {
+			V value = loader.apply(key);
+			call.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			call.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, call);
+		}
+	}
+	
+	private V await(CompletableFuture<V> running) {
+		try {
+			return running.join();
+		} catch (CompletionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw (Error) e.getCause();
+		}
+	}
+	
+}
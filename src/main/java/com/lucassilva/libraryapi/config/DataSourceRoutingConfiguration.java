@@ -0,0 +1,129 @@
+package com.lucassilva.libraryapi.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.lucassilva.libraryapi.api.filter.RateLimitFilter;
+import com.lucassilva.libraryapi.datasource.ReplicaAwareJpaTransactionManager;
+import com.lucassilva.libraryapi.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Leituras em réplicas: as transações somente leitura vão às réplicas de
+ * library.datasource.replicas.urls e o resto ao primário (spring.datasource).
+ * Cada réplica tem um pool próprio com as mesmas configurações do Hikari do
+ * primário, exceto o tempo de espera por conexão: uma réplica fora do ar deve
+ * sair do rodízio em connection-timeout-ms, não no timeout do primário, e não
+ * impede a aplicação de subir. Desligado por padrão; sem ele o DataSource é o
+ * do Spring Boot.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "library.datasource.replicas.enabled", havingValue = "true")
+public class DataSourceRoutingConfiguration {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource, DataSourceProperties properties, MeterRegistry registry,
+			@Value("${library.datasource.replicas.urls}") List<String> urls,
+			@Value("${library.datasource.replicas.username:}") String username,
+			@Value("${library.datasource.replicas.password:}") String password,
+			@Value("${library.datasource.replicas.connection-timeout-ms:1000}") long connectionTimeoutMs,
+			@Value("${library.datasource.replicas.max-lag-ms:5000}") long maxLagMs,
+			@Value("${library.datasource.replicas.lag-query:}") String lagQuery,
+			@Value("${library.datasource.replicas.read-your-writes.enabled:true}") boolean readYourWrites,
+			@Value("${library.datasource.replicas.read-your-writes.window-ms:5000}") long readYourWritesWindowMs,
+			@Value("${library.datasource.replicas.read-your-writes.max-clients:100000}") long maxClients) {
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		for (String url : urls) {
+			String name = "library-replica-" + (replicas.size() + 1);
+			HikariConfig config = new HikariConfig();
+			primaryDataSource.copyStateTo(config);
+			config.setPoolName(name);
+			config.setJdbcUrl(url.trim());
+			config.setUsername(StringUtils.hasText(username) ? username : properties.determineUsername());
+			config.setPassword(StringUtils.hasText(username) ? password : properties.determinePassword());
+			config.setConnectionTimeout(connectionTimeoutMs);
+			config.setValidationTimeout(Math.min(config.getValidationTimeout(), connectionTimeoutMs));
+			config.setInitializationFailTimeout(-1);
+			replicas.put(name, new HikariDataSource(config));
+		}
+
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMs, lagQuery,
+				readYourWrites ? Duration.ofMillis(readYourWritesWindowMs) : null, maxClients,
+				DataSourceRoutingConfiguration::currentClientKey);
+		for (ReplicaRoutingDataSource.Replica replica : routing.getReplicas()) {
+			Gauge.builder("library.datasource.replica.available", replica, r -> r.isAvailable() ? 1 : 0)
+				.tag("replica", replica.getName())
+				.register(registry);
+			Gauge.builder("library.datasource.replica.lag", replica, ReplicaRoutingDataSource.Replica::getLagMs)
+				.tag("replica", replica.getName())
+				.baseUnit("milliseconds")
+				.register(registry);
+		}
+		return routing;
+	}
+
+	/**
+	 * DataSource usado pelo JPA, Flyway e demais componentes: a conexão real só
+	 * é escolhida no primeiro comando, quando já se sabe se a transação é
+	 * somente leitura.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+	}
+
+	/**
+	 * Substitui o JpaTransactionManager do Spring Boot para que as leituras das
+	 * réplicas não populem o cache de segundo nível. As propriedades
+	 * spring.transaction.* são aplicadas aqui, como o Spring Boot faria.
+	 */
+	@Bean
+	public PlatformTransactionManager transactionManager(ObjectProvider<TransactionProperties> transactionProperties) {
+		JpaTransactionManager transactionManager = new ReplicaAwareJpaTransactionManager();
+		transactionProperties.ifAvailable( properties -> properties.customize(transactionManager) );
+		return transactionManager;
+	}
+
+	private static String currentClientKey() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if(attributes instanceof ServletRequestAttributes servletAttributes) {
+			return RateLimitFilter.clientKey(servletAttributes.getRequest());
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.lucassilva.libraryapi.config;
+
+import java.time.Instant;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import com.lucassilva.libraryapi.model.entity.Book;
+
+import reactor.core.publisher.Mono;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveDataConfiguration {
+
+	/**
+	 * Gera o id dos livros novos pela mesma sequence usada pelo JPA. O JPA reserva
+	 * blocos de 50 ids terminados no valor retornado pela sequence; usar o próprio
+	 * valor como id garante que ele nunca caia em um bloco reservado pelo JPA.
+	 */
+	@Bean
+	public BeforeConvertCallback<Book> bookIdGenerator(DatabaseClient databaseClient) {
+		return (book, table) -> {
+			if(book.getId() != null) {
+				return Mono.just(book);
+			}
+			
+			return databaseClient
+					.sql("select next value for book_seq")
+					.map( row -> row.get(0, Long.class) )
+					.one()
+					.map( id -> {
+						book.setId(id);
+						return book;
+					});
+		};
+	}
+	
+	/**
+	 * Equivalente ao @Version e ao @PrePersist/@PreUpdate de Book, que o R2DBC
+	 * não executa: numera as versões como o JPA (0 na inclusão, +1 a cada
+	 * gravação). As alterações da API reativa não passam por aqui: o próprio
+	 * update incrementa a versão e confere a esperada.
+	 */
+	@Bean
+	public BeforeConvertCallback<Book> bookVersioning() {
+		return (book, table) -> {
+			book.setVersion(book.getVersion() == null ? 0 : book.getVersion() + 1);
+			book.setLastModified(Instant.now());
+			return Mono.just(book);
+		};
+	}
+	
+}
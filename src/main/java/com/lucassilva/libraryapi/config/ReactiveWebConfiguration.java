@@ -0,0 +1,79 @@
+package com.lucassilva.libraryapi.config;
+
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfiguration implements WebFluxConfigurer {
+
+	private final ObjectMapper objectMapper;
+	
+	public ReactiveWebConfiguration(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+	
+	@Override
+	public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+		configurer.addCustomResolver(new ReactivePageableHandlerMethodArgumentResolver());
+	}
+	
+	/**
+	 * application/cbor, que o WebFlux não registra por padrão, com a mesma
+	 * configuração do Jackson das respostas JSON. Os codecs customizados têm
+	 * precedência sobre os padrões, então o encoder JSON é registrado antes
+	 * para continuar sendo o formato de quem não pede CBOR.
+	 */
+	@Override
+	public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+		ObjectMapper cborMapper = objectMapper.copyWith(new CBORFactory());
+		configurer.customCodecs().register(new Jackson2JsonEncoder(objectMapper));
+		configurer.customCodecs().register(new SingleValueCborEncoder(cborMapper));
+		configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+	}
+	
+	/**
+	 * O Jackson2CborEncoder recusa qualquer Publisher; respostas Mono são
+	 * codificadas como valor único. Fluxos continuam sem suporte a CBOR.
+	 */
+	static class SingleValueCborEncoder extends Jackson2CborEncoder {
+		
+		SingleValueCborEncoder(ObjectMapper cborMapper) {
+			super(cborMapper, MediaType.APPLICATION_CBOR);
+		}
+		
+		@Override
+		public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+				MimeType mimeType, Map<String, Object> hints) {
+			if(inputStream instanceof Mono) {
+				return Mono.from(inputStream)
+						.map( value -> encodeValue(value, bufferFactory, elementType, mimeType, hints) )
+						.flux();
+			}
+			return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+		}
+		
+	}
+	
+}
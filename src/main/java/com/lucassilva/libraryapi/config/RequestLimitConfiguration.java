@@ -0,0 +1,73 @@
+package com.lucassilva.libraryapi.config;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucassilva.libraryapi.api.filter.AimdConcurrencyLimiter;
+import com.lucassilva.libraryapi.api.filter.ConcurrencyLimitFilter;
+import com.lucassilva.libraryapi.api.filter.RateLimitFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limites aplicados às requisições de /api/books: primeiro a taxa por
+ * cliente, depois a simultaneidade total. Ficam depois do filtro de
+ * observação, para que as recusas apareçam em http.server.requests.
+ */
+@Configuration
+@Profile("!reactive")
+public class RequestLimitConfiguration {
+
+	static final String[] BOOKS_URL_PATTERNS = { "/api/books/*" };
+	
+	/**
+	 * Requisições que duram o tempo de transferir o acervo inteiro, fora do
+	 * limite de simultaneidade (continuam sujeitas ao limite de taxa).
+	 */
+	static final Set<String> LONG_RUNNING_PATHS = Set.of("/api/books/import", "/api/books/export", "/api/books/changes");
+	
+	@Bean
+	@ConditionalOnProperty(name = "library.books.limits.rate.enabled", havingValue = "true")
+	public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(ObjectMapper objectMapper, MeterRegistry registry,
+			@Value("${library.books.limits.rate.capacity:100}") long capacity,
+			@Value("${library.books.limits.rate.tokens-per-second:50}") double tokensPerSecond,
+			@Value("${library.books.limits.rate.max-clients:100000}") long maxClients,
+			@Value("${library.books.limits.rate.idle-expiration-ms:600000}") long idleExpirationMs) {
+		RateLimitFilter filter = new RateLimitFilter(capacity, tokensPerSecond, maxClients, Duration.ofMillis(idleExpirationMs),
+				System::nanoTime, objectMapper, registry);
+		
+		FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+		registration.addUrlPatterns(BOOKS_URL_PATTERNS);
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+		return registration;
+	}
+	
+	@Bean
+	@ConditionalOnProperty(name = "library.books.limits.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+	public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(ObjectMapper objectMapper, MeterRegistry registry,
+			@Value("${library.books.limits.concurrency.initial-limit:20}") int initialLimit,
+			@Value("${library.books.limits.concurrency.min-limit:4}") int minLimit,
+			@Value("${library.books.limits.concurrency.max-limit:200}") int maxLimit,
+			@Value("${library.books.limits.concurrency.latency-threshold-ms:500}") long latencyThresholdMs,
+			@Value("${library.books.limits.concurrency.backoff-ratio:0.9}") double backoffRatio) {
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+				Duration.ofMillis(latencyThresholdMs).toNanos(), backoffRatio);
+		ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, System::nanoTime, LONG_RUNNING_PATHS,
+				objectMapper, registry);
+		
+		FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+		registration.addUrlPatterns(BOOKS_URL_PATTERNS);
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 11);
+		return registration;
+	}
+	
+}
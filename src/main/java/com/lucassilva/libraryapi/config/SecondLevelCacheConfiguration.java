@@ -0,0 +1,39 @@
+package com.lucassilva.libraryapi.config;
+
+import java.net.URI;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * CacheManager próprio para o cache de segundo nível do Hibernate. O padrão do
+ * JCache é um único por JVM, e aplicações na mesma JVM (como os contextos dos
+ * testes, cada um com o seu banco) veriam umas os livros das outras nos mesmos
+ * ids. O Caffeine lê as regiões do application.conf para qualquer URI que não
+ * seja file: ou classpath:.
+ */
+@Configuration
+@Profile("!reactive")
+public class SecondLevelCacheConfiguration {
+
+	@Bean(destroyMethod = "close")
+	public CacheManager hibernateCacheManager() {
+		return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+				.getCacheManager(URI.create("urn:library:" + UUID.randomUUID()), getClass().getClassLoader());
+	}
+	
+	@Bean
+	public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+		return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+	}
+	
+}
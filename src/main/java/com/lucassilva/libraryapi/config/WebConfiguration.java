@@ -0,0 +1,28 @@
+package com.lucassilva.libraryapi.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+@Configuration
+@Profile("!reactive")
+public class WebConfiguration implements WebMvcConfigurer {
+
+	/**
+	 * application/cbor para clientes internos que enviam Accept ou
+	 * Content-Type binário: mesmos DTOs e mesma configuração do Jackson das
+	 * respostas JSON, com payload menor e sem codificação de texto. Substitui
+	 * o conversor CBOR padrão do Spring MVC na mesma posição, depois do JSON,
+	 * que continua sendo o formato de quem não pede CBOR.
+	 */
+	@Bean
+	public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+		return new MappingJackson2CborHttpMessageConverter(objectMapper.copyWith(new CBORFactory()));
+	}
+	
+}
@@ -0,0 +1,45 @@
+package com.lucassilva.libraryapi.datasource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Transações somente leitura podem ser atendidas por uma réplica atrasada:
+ * nelas a sessão do Hibernate só consulta o cache de segundo nível, sem gravar
+ * nele as entidades e consultas carregadas, para que uma versão antiga não
+ * fique no cache depois que a réplica alcançar o primário. As leituras dentro
+ * de ReplicaRoutingDataSource.readFromPrimary continuam populando o cache.
+ */
+public class ReplicaAwareJpaTransactionManager extends JpaTransactionManager {
+
+	@Override
+	protected void doBegin(Object transaction, TransactionDefinition definition) {
+		super.doBegin(transaction, definition);
+		if(definition.isReadOnly() && !ReplicaRoutingDataSource.isReadingFromPrimary()) {
+			Session session = currentSession();
+			if(session != null && session.getCacheMode() == CacheMode.NORMAL) {
+				session.setCacheMode(CacheMode.GET);
+			}
+		}
+	}
+
+	@Override
+	protected void doCleanupAfterCompletion(Object transaction) {
+		// com open-in-view a mesma sessão atende as próximas transações da requisição
+		Session session = currentSession();
+		if(session != null && session.isOpen() && session.getCacheMode() == CacheMode.GET) {
+			session.setCacheMode(CacheMode.NORMAL);
+		}
+		super.doCleanupAfterCompletion(transaction);
+	}
+
+	private Session currentSession() {
+		EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(obtainEntityManagerFactory());
+		return holder == null ? null : holder.getEntityManager().unwrap(Session.class);
+	}
+
+}
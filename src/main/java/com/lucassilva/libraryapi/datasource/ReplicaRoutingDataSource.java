@@ -0,0 +1,239 @@
+package com.lucassilva.libraryapi.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Envia as conexões de transações somente leitura (@Transactional(readOnly = true))
+ * às réplicas, em rodízio, e todas as demais ao primário. Réplicas que recusam
+ * conexões, que falham na consulta de atraso ou que estão mais de maxLagMs
+ * atrás do primário deixam de receber leituras até a próxima verificação
+ * bem-sucedida; sem réplica disponível, a leitura vai ao primário.
+ * Com readYourWritesWindow, um cliente que confirmou uma gravação lê do
+ * primário durante essa janela, para não deixar de ver o que acabou de gravar.
+ * Deve ficar atrás de um LazyConnectionDataSourceProxy: o gerenciador de
+ * transações pede a conexão antes de marcar a transação como somente leitura,
+ * e o proxy só a obtém daqui no primeiro comando.
+ * Leituras que alimentam caches usam readFromPrimary: lidas de uma réplica
+ * atrasada, deixariam no cache uma versão antiga do registro.
+ * As réplicas passam a pertencer a este DataSource e são fechadas com ele.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+	private final DataSource primary;
+
+	private final List<Replica> replicas = new ArrayList<>();
+
+	private final long maxLagMs;
+
+	private final String lagQuery;
+
+	private final Supplier<String> clientKey;
+
+	private final Cache<String, Boolean> recentWriters;
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+	/**
+	 * @param lagQuery consulta executada em cada réplica que retorna o atraso
+	 * em milissegundos; vazia considera só se a réplica aceita conexões
+	 * @param readYourWritesWindow null desativa a leitura das próprias gravações
+	 * @param clientKey identifica o cliente da requisição atual, ou null fora
+	 * de uma requisição
+	 */
+	public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxLagMs, String lagQuery,
+			Duration readYourWritesWindow, long maxClients, Supplier<String> clientKey) {
+		this.primary = primary;
+		replicas.forEach( (name, dataSource) -> this.replicas.add(new Replica(name, dataSource)) );
+		this.maxLagMs = maxLagMs;
+		this.lagQuery = lagQuery;
+		this.clientKey = clientKey;
+		this.recentWriters = readYourWritesWindow == null ? null : Caffeine.newBuilder()
+				.maximumSize(maxClients)
+				.expireAfterWrite(readYourWritesWindow)
+				.build();
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			recordWrite();
+			return primary.getConnection();
+		}
+		if(replicas.isEmpty() || isReadingFromPrimary() || wroteRecently()) {
+			return primary.getConnection();
+		}
+
+		int size = replicas.size();
+		int start = Math.floorMod(next.getAndIncrement(), size);
+		for (int i = 0; i < size; i++) {
+			Replica replica = replicas.get((start + i) % size);
+			if(!replica.available) {
+				continue;
+			}
+			try {
+				return replica.dataSource.getConnection();
+			} catch (SQLException e) {
+				replica.available = false;
+			}
+		}
+		return primary.getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return primary.getConnection(username, password);
+	}
+
+	/**
+	 * Executa reads lendo do primário, mesmo nas transações somente leitura
+	 * abertas dentro dele. Sem o roteamento configurado, só executa reads.
+	 */
+	public static <T> T readFromPrimary(Supplier<T> reads) {
+		if(isReadingFromPrimary()) {
+			return reads.get();
+		}
+		PRIMARY_READS.set(Boolean.TRUE);
+		try {
+			return reads.get();
+		} finally {
+			PRIMARY_READS.remove();
+		}
+	}
+
+	public static boolean isReadingFromPrimary() {
+		return PRIMARY_READS.get() != null;
+	}
+
+	/**
+	 * Confere se cada réplica aceita conexões e se o atraso dela está dentro
+	 * de maxLagMs, liberando ou suspendendo as leituras nela.
+	 */
+	@Scheduled(fixedDelayString = "${library.datasource.replicas.check-interval-ms:1000}")
+	public void checkReplicas() {
+		for (Replica replica : replicas) {
+			try (Connection connection = replica.dataSource.getConnection()) {
+				long lagMs = lag(connection);
+				replica.lagMs = lagMs;
+				replica.available = lagMs <= maxLagMs;
+			} catch (SQLException e) {
+				replica.lagMs = -1;
+				replica.available = false;
+			}
+		}
+	}
+
+	public List<Replica> getReplicas() {
+		return Collections.unmodifiableList(replicas);
+	}
+
+	@Override
+	public void close() throws Exception {
+		for (Replica replica : replicas) {
+			if(replica.dataSource instanceof AutoCloseable closeable) {
+				closeable.close();
+			}
+		}
+	}
+
+	private long lag(Connection connection) throws SQLException {
+		if(!StringUtils.hasText(lagQuery)) {
+			if(!connection.isValid(1)) {
+				throw new SQLException("Réplica não respondeu à validação da conexão");
+			}
+			return 0;
+		}
+
+		try (Statement statement = connection.createStatement();
+			 ResultSet result = statement.executeQuery(lagQuery)) {
+			if(!result.next()) {
+				throw new SQLException("A consulta de atraso da réplica não retornou linhas");
+			}
+			return result.getLong(1);
+		}
+	}
+
+	private void recordWrite() {
+		if(recentWriters == null || !TransactionSynchronizationManager.isActualTransactionActive()) {
+			return;
+		}
+		String key = clientKey.get();
+		if(key == null) {
+			return;
+		}
+
+		if(TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					recentWriters.put(key, Boolean.TRUE);
+				}
+			});
+		} else {
+			recentWriters.put(key, Boolean.TRUE);
+		}
+	}
+
+	private boolean wroteRecently() {
+		if(recentWriters == null) {
+			return false;
+		}
+		String key = clientKey.get();
+		return key != null && recentWriters.getIfPresent(key) != null;
+	}
+
+	public static class Replica {
+
+		private final String name;
+
+		private final DataSource dataSource;
+
+		private volatile boolean available = true;
+
+		private volatile long lagMs;
+
+		Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isAvailable() {
+			return available;
+		}
+
+		/**
+		 * Atraso medido na última verificação, ou -1 se ela falhou.
+		 */
+		public long getLagMs() {
+			return lagMs;
+		}
+
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.lucassilva.libraryapi.model;
+
+/**
+ * Leitura de ISBN-10 e ISBN-13 com verificação do dígito de controle. O
+ * resultado é o ISBN-13 como long (um ISBN-10 ganha o prefixo 978), de modo
+ * que as várias formas de escrever o mesmo ISBN (com ou sem hífens e espaços,
+ * com 10 ou 13 dígitos) resultam no mesmo valor, comparável sem Strings.
+ */
+public final class Isbn {
+
+	/**
+	 * Retornado por parse para textos que não são um ISBN válido. Nenhum
+	 * ISBN-13 é zero, pois todos começam com 978 ou 979.
+	 */
+	public static final long INVALID = 0;
+
+	private static final long PREFIX_978 = 978_000_000_000_0L;
+
+	private Isbn() {
+	}
+
+	/**
+	 * Converte o ISBN-10 ou ISBN-13, ignorando hífens e espaços, para o
+	 * ISBN-13 como long, ou INVALID se o texto não for um ISBN válido.
+	 */
+	public static long parse(CharSequence text) {
+		if(text == null) {
+			return INVALID;
+		}
+
+		int digits = 0;
+		int length = text.length();
+		long value = 0;
+		int checksum10 = 0;
+		int checksum13 = 0;
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if(c == '-' || c == ' ') {
+				continue;
+			}
+
+			int digit;
+			if(c >= '0' && c <= '9') {
+				digit = c - '0';
+			} else if((c == 'X' || c == 'x') && digits == 9 && isLastDigit(text, i + 1)) {
+				digit = 10;
+			} else {
+				return INVALID;
+			}
+
+			if(++digits > 13) {
+				return INVALID;
+			}
+			value = value * 10 + Math.min(digit, 9);
+			checksum10 += digit * (11 - digits);
+			checksum13 += digit * (digits % 2 == 0 ? 3 : 1);
+		}
+
+		if(digits == 10) {
+			if(checksum10 % 11 != 0) {
+				return INVALID;
+			}
+			return withCheckDigit(PREFIX_978 + value / 10 * 10);
+		}
+		if(digits == 13) {
+			long prefix = value / 10_000_000_000L;
+			if((prefix != 978 && prefix != 979) || checksum13 % 10 != 0) {
+				return INVALID;
+			}
+			return value;
+		}
+		return INVALID;
+	}
+
+	public static boolean isValid(CharSequence text) {
+		return parse(text) != INVALID;
+	}
+
+	/**
+	 * Os 13 dígitos do ISBN retornado por parse, sem separadores.
+	 */
+	public static String format(long isbn) {
+		return Long.toString(isbn);
+	}
+
+	/**
+	 * Forma em que o isbn é gravado e buscado: os 13 dígitos, se o texto for
+	 * um ISBN válido em qualquer formatação, ou o próprio texto se não for.
+	 * Assim as formas de escrever o mesmo ISBN batem na restrição única.
+	 */
+	public static String canonical(String text) {
+		long isbn = parse(text);
+		return isbn == INVALID ? text : format(isbn);
+	}
+
+	private static boolean isLastDigit(CharSequence text, int from) {
+		for (int i = from; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if(c != '-' && c != ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Calcula o dígito de controle do ISBN-13 cujos 12 primeiros dígitos são
+	 * os de isbn (o último dígito de isbn deve ser zero).
+	 */
+	private static long withCheckDigit(long isbn) {
+		long rest = isbn / 10;
+		int sum = 0;
+		for (int position = 12; position >= 1; position--) {
+			int digit = (int) (rest % 10);
+			sum += digit * (position % 2 == 0 ? 3 : 1);
+			rest /= 10;
+		}
+		return isbn + (10 - sum % 10) % 10;
+	}
+
+}
@@ -1,10 +1,26 @@
 package com.lucassilva.libraryapi.model.entity;
 
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
-import javax.persistence.Id;
-import javax.persistence.Table;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.lucassilva.libraryapi.api.service.impl.BookSearchIndexListener;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,18 +28,44 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
+@EntityListeners(BookSearchIndexListener.class)
+@Table(indexes = {
+		@Index(name = "idx_book_title", columnList = "title"),
+		@Index(name = "idx_book_author", columnList = "author"),
+		@Index(name = "idx_book_last_modified", columnList = "lastModified, id")
+}, uniqueConstraints = @UniqueConstraint(name = Book.ISBN_CONSTRAINT, columnNames = "isbn"))
 public class Book {
 
+	public static final String ISBN_CONSTRAINT = "uk_book_isbn";
+	
+	public static final String CACHE_REGION = "book";
+	
+	public static final String QUERY_CACHE_REGION = "book-queries";
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@org.springframework.data.annotation.Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+	@SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
 	private Long id;
 	private String title;
 	private String author;
 	private String isbn;
 	
+	@Version
+	private Long version;
+	
+	private Instant lastModified;
+	
+	@PrePersist
+	@PreUpdate
+	void touch() {
+		lastModified = Instant.now().truncatedTo(ChronoUnit.MICROS);
+	}
+	
 }
@@ -0,0 +1,67 @@
+package com.lucassilva.libraryapi.model.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Registro da tabela de saída (outbox) de alterações de livros, gravado na
+ * mesma transação da alteração. O offset só é atribuído quando o evento é
+ * publicado, na ordem de publicação, e é a posição usada pelos consumidores
+ * para retomar o feed.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_book_event_offset", columnNames = "event_offset"))
+public class BookEvent {
+
+	public enum Type {
+		CREATED, UPDATED, DELETED
+	}
+	
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_event_seq")
+	@SequenceGenerator(name = "book_event_seq", sequenceName = "book_event_seq", allocationSize = 50)
+	private Long id;
+	
+	@Column(name = "event_offset")
+	private Long offset;
+	
+	@Enumerated(EnumType.STRING)
+	private Type type;
+	
+	private Long bookId;
+	private String title;
+	private String author;
+	private String isbn;
+	private Instant occurredAt;
+	
+	public static BookEvent of(Type type, Book book) {
+		return BookEvent.builder()
+				.type(type)
+				.bookId(book.getId())
+				.title(book.getTitle())
+				.author(book.getAuthor())
+				.isbn(book.getIsbn())
+				.occurredAt(Instant.now())
+				.build();
+	}
+	
+}
@@ -0,0 +1,33 @@
+package com.lucassilva.libraryapi.model.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Marca de exclusão de um livro, mantida para que a sincronização incremental
+ * informe as remoções sem que a tabela de livros precise guardar linhas
+ * excluídas. Os ids de livros vêm de uma sequence e nunca são reutilizados.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_book_tombstone_deleted_at", columnList = "deletedAt, bookId"))
+public class BookTombstone {
+
+	@Id
+	private Long bookId;
+	private String isbn;
+	private Instant deletedAt;
+	
+}
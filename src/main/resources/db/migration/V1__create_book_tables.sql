@@ -0,0 +1,39 @@
+create sequence book_seq start with 1 increment by 50;
+create sequence book_event_seq start with 1 increment by 50;
+
+create table book (
+	id bigint not null,
+	title varchar(255),
+	author varchar(255),
+	isbn varchar(255),
+	version bigint,
+	last_modified timestamp(6) with time zone,
+	primary key (id),
+	constraint uk_book_isbn unique (isbn)
+);
+
+create index idx_book_title on book (title);
+create index idx_book_author on book (author);
+create index idx_book_last_modified on book (last_modified, id);
+
+create table book_event (
+	id bigint not null,
+	event_offset bigint,
+	type varchar(255) check (type in ('CREATED', 'UPDATED', 'DELETED')),
+	book_id bigint,
+	title varchar(255),
+	author varchar(255),
+	isbn varchar(255),
+	occurred_at timestamp(6) with time zone,
+	primary key (id),
+	constraint uk_book_event_offset unique (event_offset)
+);
+
+create table book_tombstone (
+	book_id bigint not null,
+	isbn varchar(255),
+	deleted_at timestamp(6) with time zone,
+	primary key (book_id)
+);
+
+create index idx_book_tombstone_deleted_at on book_tombstone (deleted_at, book_id);
@@ -0,0 +1,15 @@
+create sequence if not exists book_seq start with 1 increment by 50;
+
+create table if not exists book (
+	id bigint not null,
+	author varchar(255),
+	isbn varchar(255),
+	title varchar(255),
+	version bigint,
+	last_modified timestamp(6) with time zone,
+	primary key (id),
+	constraint uk_book_isbn unique (isbn)
+);
+
+create index if not exists idx_book_title on book (title);
+create index if not exists idx_book_author on book (author);
@@ -0,0 +1,53 @@
+package com.lucassilva.libraryapi;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"library.books.limits.rate.enabled=true",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class MetricsTest {
+
+	@Autowired
+	MockMvc mvc;
+	
+	@Test
+	@DisplayName("Deve expor as métricas de endpoints, serviço, erros, limites, pool e cache de segundo nível no formato Prometheus")
+	public void prometheusEndpointTest() throws Exception {
+		
+		mvc.perform(MockMvcRequestBuilders.get("/api/books/1").accept(MediaType.APPLICATION_JSON))
+		   .andExpect(MockMvcResultMatchers.status().isNotFound());
+		
+		mvc.perform(MockMvcRequestBuilders.post("/api/books").contentType(MediaType.APPLICATION_JSON).content("{}"))
+		   .andExpect(MockMvcResultMatchers.status().isBadRequest());
+		
+		mvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+		   .andExpect(MockMvcResultMatchers.status().isOk())
+		   .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("http_server_requests_seconds_bucket")))
+		   .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("library_books_service_seconds_bucket")))
+		   .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("library_books_errors_total{type=\"validation\",}")))
+		   .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("hikaricp_connections")))
+		   .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("library_books_requests_total{limiter=\"rate\",outcome=\"admitted\",}")))
+		   .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("library_books_concurrency_limit")))
+		   .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("hibernate_statements")))
+		   .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("hibernate_second_level_cache_requests_total{entityManagerFactory=\"entityManagerFactory\",region=\"book\",result=\"hit\",}")));
+	}
+	
+}
@@ -0,0 +1,111 @@
+package com.lucassilva.libraryapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.lucassilva.libraryapi.api.repository.BookRepository;
+import com.lucassilva.libraryapi.api.service.BookService;
+import com.lucassilva.libraryapi.model.entity.Book;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Sobe a aplicação com o perfil "postgres", trocando apenas a conexão por um
+ * H2 no modo de compatibilidade com o PostgreSQL (IGNORE_UNKNOWN_SETTINGS
+ * descarta as propriedades específicas do driver do PostgreSQL). O repasse
+ * dos eventos fica desligado: o H2 não entende o "for no key update" que o
+ * dialeto do PostgreSQL gera para o lock dos eventos pendentes.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles({ "test", "postgres" })
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:postgres-profile;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;IGNORE_UNKNOWN_SETTINGS=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"library.books.events.relay-interval-ms=86400000"
+})
+public class PostgresProfileTest {
+
+	@Autowired
+	Flyway flyway;
+	
+	@Autowired
+	DataSource dataSource;
+	
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+	
+	@Autowired
+	BookService bookService;
+	
+	@Autowired
+	BookRepository bookRepository;
+	
+	@Test
+	@DisplayName("Deve criar o esquema pelas migrações, com índices e isbn único")
+	public void migrationsTest() {
+		
+		//verificação
+		// V2 (índices com varchar_pattern_ops) fica em db/vendor/postgresql e não roda no H2
+		MigrationInfo[] applied = flyway.info().applied();
+		assertThat(applied).extracting( migration -> migration.getVersion().getVersion() ).containsExactly("1");
+		
+		List<String> indexes = jdbcTemplate.queryForList(
+				"select index_name from information_schema.indexes where table_name in ('book', 'book_tombstone')", String.class);
+		assertThat(indexes).contains("idx_book_title", "idx_book_author", "idx_book_last_modified", "idx_book_tombstone_deleted_at");
+		
+		bookService.save(Book.builder().title("Aventuras").author("Fulano").isbn("pg-123").build());
+		Assertions.assertThrows(DataIntegrityViolationException.class,
+				() -> bookRepository.saveAndFlush(Book.builder().title("Outro").author("Ciclano").isbn("pg-123").build()));
+	}
+	
+	@Test
+	@DisplayName("Deve configurar o pool de tamanho fixo com cache de statements do driver")
+	public void connectionPoolTest() {
+		
+		//verificação
+		HikariDataSource hikari = (HikariDataSource) dataSource;
+		assertThat(hikari.getPoolName()).isEqualTo("library");
+		assertThat(hikari.getMaximumPoolSize()).isEqualTo(10);
+		assertThat(hikari.getMinimumIdle()).isEqualTo(10);
+		assertThat(hikari.getDataSourceProperties())
+			.containsEntry("prepareThreshold", "3")
+			.containsEntry("preparedStatementCacheQueries", "256")
+			.containsEntry("reWriteBatchedInserts", "true");
+	}
+	
+	@Test
+	@DisplayName("Deve gravar e ler livros pelo dialeto do PostgreSQL")
+	public void persistenceTest() {
+		
+		//cenário
+		Book book = bookService.save(Book.builder().title("Memórias").author("Machado").isbn("pg-456").build());
+		
+		//execução
+		book.setTitle("Memórias Póstumas");
+		book = bookService.update(book);
+		
+		//verificação
+		assertThat(bookService.getById(book.getId())).get().extracting(Book::getTitle).isEqualTo("Memórias Póstumas");
+		assertThat(bookService.search("postumas", PageRequest.of(0, 10))).extracting(Book::getId).containsExactly(book.getId());
+		assertThat(book.getVersion()).isEqualTo(1L);
+	}
+	
+}
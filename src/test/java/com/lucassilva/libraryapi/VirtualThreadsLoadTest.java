@@ -0,0 +1,150 @@
+package com.lucassilva.libraryapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.lucassilva.libraryapi.api.repository.BookRepository;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+/**
+ * Compara a vazão do BookController com requisições em threads de plataforma
+ * e em virtual threads, com um findById que leva REPOSITORY_LATENCY_MS a
+ * responder (simulando um banco remoto) sem ocupar conexões do Hikari, para
+ * que a única diferença entre as execuções seja o modelo de threads. Com o
+ * pool do Tomcat limitado a TOMCAT_MAX_THREADS, as threads de plataforma
+ * ficam bloqueadas esperando o repositório e as demais requisições entram na
+ * fila. Cada requisição pede um id diferente, para que a coalescência de
+ * leituras do mesmo livro no BookService não esconda a espera no repositório.
+ * Mede vazão real, então só roda no perfil load (mvn -Pload test).
+ */
+@Tag("load")
+public class VirtualThreadsLoadTest {
+
+	static final int REQUESTS = 200;
+	static final int TOMCAT_MAX_THREADS = 8;
+	static final long REPOSITORY_LATENCY_MS = 200;
+
+	@Test
+	@DisplayName("Deve atender mais requisições por segundo em virtual threads com um repositório lento")
+	public void virtualThreadsThroughputTest() throws Exception {
+
+		//cenário / execução
+		LoadResult platform = runLoad(false);
+		LoadResult virtual = runLoad(true);
+
+		//verificação
+		assertThat(platform.virtualThreads).containsOnly(false);
+		assertThat(virtual.virtualThreads).containsOnly(true);
+		assertThat(virtual.throughput())
+			.as("vazão em virtual threads %.0f req/s, em threads de plataforma %.0f req/s", virtual.throughput(), platform.throughput())
+			.isGreaterThan(platform.throughput() * 2);
+	}
+
+	private LoadResult runLoad(boolean virtualThreads) throws Exception {
+		Set<Boolean> handledOnVirtualThread = ConcurrentHashMap.newKeySet();
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryApiApplication.class)
+				.initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(slowRepository(handledOnVirtualThread)))
+				.run(
+						"--spring.profiles.active=test",
+						"--spring.threads.virtual.enabled=" + virtualThreads,
+						"--server.port=0",
+						"--server.tomcat.threads.max=" + TOMCAT_MAX_THREADS,
+						"--server.tomcat.accept-count=" + REQUESTS,
+						"--spring.cache.type=none",
+						"--library.books.limits.rate.enabled=false",
+						"--library.books.limits.concurrency.enabled=false",
+						"--spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads + ";DB_CLOSE_ON_EXIT=FALSE",
+						"--spring.jmx.enabled=false",
+						"--spring.main.banner-mode=off",
+						"--logging.level.root=warn");
+			 ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			AtomicLong ids = new AtomicLong();
+			HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clients).build();
+
+			// aquece a conexão e o caminho da requisição antes da medição
+			assertThat(client.send(bookRequest(port, ids.incrementAndGet()), HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(200);
+			handledOnVirtualThread.clear();
+
+			long start = System.nanoTime();
+			List<CompletableFuture<HttpResponse<Void>>> responses = IntStream.range(0, REQUESTS)
+					.mapToObj(i -> client.sendAsync(bookRequest(port, ids.incrementAndGet()), HttpResponse.BodyHandlers.discarding()))
+					.collect(Collectors.toList());
+			CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).join();
+			long elapsed = System.nanoTime() - start;
+
+			assertThat(responses).allSatisfy(response -> assertThat(response.join().statusCode()).isEqualTo(200));
+			return new LoadResult(elapsed, handledOnVirtualThread);
+		}
+	}
+
+	private static HttpRequest bookRequest(int port, long id) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/" + id)).build();
+	}
+
+	private static BeanPostProcessor slowRepository(Set<Boolean> handledOnVirtualThread) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof BookRepository)) {
+					return bean;
+				}
+				return Proxy.newProxyInstance(BookRepository.class.getClassLoader(), new Class<?>[] { BookRepository.class }, (proxy, method, args) -> {
+					if (method.getName().equals("findById")) {
+						handledOnVirtualThread.add(Thread.currentThread().isVirtual());
+						Thread.sleep(REPOSITORY_LATENCY_MS);
+						return Optional.of(Book.builder().id((Long) args[0]).title("Aventuras").author("Fulano").isbn("123").build());
+					}
+					try {
+						return method.invoke(bean, args);
+					} catch (InvocationTargetException e) {
+						throw e.getTargetException();
+					}
+				});
+			}
+		};
+	}
+
+	static class LoadResult {
+
+		final long elapsedNanos;
+		final Set<Boolean> virtualThreads;
+
+		LoadResult(long elapsedNanos, Set<Boolean> virtualThreads) {
+			this.elapsedNanos = elapsedNanos;
+			this.virtualThreads = virtualThreads;
+		}
+
+		double throughput() {
+			return REQUESTS / (elapsedNanos / 1_000_000_000d);
+		}
+
+	}
+
+}
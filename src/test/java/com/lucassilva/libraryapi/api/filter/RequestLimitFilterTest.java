@@ -0,0 +1,203 @@
+package com.lucassilva.libraryapi.api.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"library.books.limits.rate.enabled=true",
+		"library.books.limits.rate.capacity=3",
+		"library.books.limits.rate.tokens-per-second=0.001"
+})
+@AutoConfigureMockMvc
+public class RequestLimitFilterTest {
+
+	static String BOOK_API = "/api/books";
+	
+	@Autowired
+	MockMvc mvc;
+	
+	ObjectMapper objectMapper = new ObjectMapper();
+	
+	@Test
+	@DisplayName("Deve responder 429 às requisições /api/books acima do limite do cliente, mesmo trocando o X-API-Key")
+	public void rateLimitedEndpointTest() throws Exception {
+		
+		//execução
+		for (int i = 0; i < 3; i++) {
+			mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/0").with(remoteAddr("10.0.0.1")).accept(MediaType.APPLICATION_JSON))
+			   .andExpect(MockMvcResultMatchers.status().isNotFound());
+		}
+		
+		//verificação
+		// o X-API-Key não é autenticado e não pode render um balde novo
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/0").with(remoteAddr("10.0.0.1")).header("X-API-Key", "outra-chave")
+				.accept(MediaType.APPLICATION_JSON))
+		   .andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+		   .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.RETRY_AFTER))
+		   .andExpect(MockMvcResultMatchers.jsonPath("errors", Matchers.hasSize(1)));
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/0").with(remoteAddr("10.0.0.2")).accept(MediaType.APPLICATION_JSON))
+		   .andExpect(MockMvcResultMatchers.status().isNotFound());
+		
+		mvc.perform(MockMvcRequestBuilders.get("/actuator/health"))
+		   .andExpect(MockMvcResultMatchers.status().isOk());
+	}
+	
+	@Test
+	@DisplayName("Deve repor as fichas do cliente com o passar do tempo")
+	public void tokenRefillTest() throws Exception {
+		
+		//cenário
+		AtomicLong clock = new AtomicLong();
+		MeterRegistry registry = new SimpleMeterRegistry();
+		RateLimitFilter filter = new RateLimitFilter(2, 1, 100, Duration.ofMinutes(1), clock::get, objectMapper, registry);
+		
+		//execução
+		int first = filter(filter, "10.0.0.1").getStatus();
+		int second = filter(filter, "10.0.0.1").getStatus();
+		MockHttpServletResponse rejected = filter(filter, "10.0.0.1");
+		int otherClient = filter(filter, "10.0.0.2").getStatus();
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+		int refilled = filter(filter, "10.0.0.1").getStatus();
+		
+		//verificações
+		assertThat(first).isEqualTo(200);
+		assertThat(second).isEqualTo(200);
+		assertThat(rejected.getStatus()).isEqualTo(429);
+		assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		assertThat(rejected.getContentAsString()).contains("Limite de requisições excedido");
+		assertThat(otherClient).isEqualTo(200);
+		assertThat(refilled).isEqualTo(200);
+		assertThat(registry.counter("library.books.requests", "limiter", "rate", "outcome", "admitted").count()).isEqualTo(4);
+		assertThat(registry.counter("library.books.requests", "limiter", "rate", "outcome", "rejected").count()).isEqualTo(1);
+	}
+	
+	@Test
+	@DisplayName("Deve aumentar o limite com respostas rápidas e reduzi-lo uma vez por pico de latência")
+	public void aimdLimitTest() {
+		
+		//cenário
+		long threshold = TimeUnit.MILLISECONDS.toNanos(100);
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 1, 10, threshold, 0.5);
+		
+		//execução / verificações
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isFalse();
+		
+		limiter.release(0, threshold / 2);
+		assertThat(limiter.getLimit()).isEqualTo(3);
+		
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isTrue();
+		limiter.release(0, threshold * 2);
+		limiter.release(0, threshold * 3);
+		assertThat(limiter.getLimit()).isEqualTo(1);
+		
+		limiter.release(threshold * 4, threshold * 6);
+		assertThat(limiter.getLimit()).isEqualTo(1);
+		assertThat(limiter.getInflight()).isZero();
+	}
+	
+	@Test
+	@DisplayName("Deve responder 503 quando o limite de simultaneidade estiver ocupado")
+	public void concurrencyLimitTest() throws Exception {
+		
+		//cenário
+		MeterRegistry registry = new SimpleMeterRegistry();
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(1, 1, 1, TimeUnit.SECONDS.toNanos(1), 0.9);
+		ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, System::nanoTime, Set.of(), objectMapper, registry);
+		limiter.tryAcquire();
+		
+		//execução
+		MockHttpServletResponse rejected = filter(filter, null);
+		limiter.release();
+		MockHttpServletResponse admitted = filter(filter, null);
+		
+		//verificações
+		assertThat(rejected.getStatus()).isEqualTo(503);
+		assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		assertThat(admitted.getStatus()).isEqualTo(200);
+		assertThat(limiter.getInflight()).isZero();
+		assertThat(registry.get("library.books.concurrency.limit").gauge().value()).isEqualTo(1);
+		assertThat(registry.counter("library.books.requests", "limiter", "concurrency", "outcome", "rejected").count()).isEqualTo(1);
+	}
+	
+	@Test
+	@DisplayName("Não deve limitar nem medir a latência das requisições de longa duração")
+	public void concurrencyUnlimitedPathTest() throws Exception {
+		
+		//cenário
+		AtomicLong clock = new AtomicLong();
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 1, 10, TimeUnit.SECONDS.toNanos(1), 0.5);
+		ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, clock::get, Set.of(BOOK_API + "/export"),
+				objectMapper, new SimpleMeterRegistry());
+		limiter.tryAcquire();
+		limiter.tryAcquire();
+		MockFilterChain slowChain = new MockFilterChain() {
+			@Override
+			public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response) {
+				clock.addAndGet(TimeUnit.MINUTES.toNanos(5));
+			}
+		};
+		
+		//execução
+		MockHttpServletResponse export = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", BOOK_API + "/export"), export, slowChain);
+		MockHttpServletResponse rejected = filter(filter, null);
+		
+		//verificações
+		assertThat(export.getStatus()).isEqualTo(200);
+		assertThat(rejected.getStatus()).isEqualTo(503);
+		assertThat(limiter.getLimit()).isEqualTo(2);
+		assertThat(limiter.getInflight()).isEqualTo(2);
+	}
+	
+	private static RequestPostProcessor remoteAddr(String remoteAddr) {
+		return request -> {
+			request.setRemoteAddr(remoteAddr);
+			return request;
+		};
+	}
+	
+	private MockHttpServletResponse filter(jakarta.servlet.Filter filter, String remoteAddr) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", BOOK_API);
+		if(remoteAddr != null) {
+			request.setRemoteAddr(remoteAddr);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+	
+}
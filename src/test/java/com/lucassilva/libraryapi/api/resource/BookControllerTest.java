@@ -1,6 +1,13 @@
 package com.lucassilva.libraryapi.api.resource;
 
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -12,23 +19,43 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.lucassilva.libraryapi.api.dto.BookBatchDTO;
 import com.lucassilva.libraryapi.api.dto.BookDTO;
+import com.lucassilva.libraryapi.api.dto.BookUpdateDTO;
+import com.lucassilva.libraryapi.api.service.BookChangeCursor;
+import com.lucassilva.libraryapi.api.service.BookChanges;
+import com.lucassilva.libraryapi.api.service.BookSearchCursor;
+import com.lucassilva.libraryapi.api.service.BookSearchResult;
 import com.lucassilva.libraryapi.api.service.BookService;
 import com.lucassilva.libraryapi.exception.BusinessException;
 import com.lucassilva.libraryapi.model.entity.Book;
+import com.lucassilva.libraryapi.model.entity.BookTombstone;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
-@WebMvcTest
+@WebMvcTest(BookController.class)
+@Import({ IdempotencyStore.class, SimpleMeterRegistry.class })
 @AutoConfigureMockMvc
 public class BookControllerTest {
 
@@ -68,6 +95,157 @@ public class BookControllerTest {
 		
 	}
 	
+	@Test
+	@DisplayName("Deve repetir a resposta original para a mesma Idempotency-Key sem criar o livro de novo")
+	public void createBookIdempotentTest() throws Exception {
+		
+		//cenário
+		Book savedBook = Book.builder().id(1L).author("Manel Loureiro").title("Apocalipse Z").isbn("idem-321").build();
+		BDDMockito.given(bookService.save(Mockito.any(Book.class))).willReturn(savedBook);
+		String json = new ObjectMapper().writeValueAsString(BookDTO.builder().author("Manel Loureiro").title("Apocalipse Z").isbn("idem-321").build());
+		
+		//execução
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.post(BOOK_API)
+				.header("Idempotency-Key", "chave-1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(json);
+		
+		//verificação
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isCreated() )
+			.andExpect( MockMvcResultMatchers.header().doesNotExist("Idempotent-Replayed") );
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isCreated() )
+			.andExpect( MockMvcResultMatchers.header().string("Idempotent-Replayed", "true") )
+			.andExpect( MockMvcResultMatchers.jsonPath("id").value(1) );
+		
+		Mockito.verify(bookService, Mockito.times(1)).save(Mockito.any(Book.class));
+	}
+	
+	@Test
+	@DisplayName("Deve separar a mesma Idempotency-Key de clientes anônimos diferentes")
+	public void createBookIdempotencyKeyPerClientTest() throws Exception {
+		
+		//cenário
+		Book first = Book.builder().id(1L).author("Fulano").title("Aventuras").isbn("idem-a").build();
+		Book second = Book.builder().id(2L).author("Fulano").title("Aventuras").isbn("idem-a").build();
+		BDDMockito.given(bookService.save(Mockito.any(Book.class))).willReturn(first, second);
+		String json = new ObjectMapper().writeValueAsString(BookDTO.builder().author("Fulano").title("Aventuras").isbn("idem-a").build());
+		
+		//execução
+		mvc.perform(MockMvcRequestBuilders.post(BOOK_API)
+				.with( request -> { request.setRemoteAddr("10.0.0.1"); return request; } )
+				.header("Idempotency-Key", "chave-3")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json))
+		   .andExpect( MockMvcResultMatchers.status().isCreated() )
+		   .andExpect( MockMvcResultMatchers.jsonPath("id").value(1) );
+		
+		//verificação
+		mvc.perform(MockMvcRequestBuilders.post(BOOK_API)
+				.with( request -> { request.setRemoteAddr("10.0.0.2"); return request; } )
+				.header("Idempotency-Key", "chave-3")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json))
+		   .andExpect( MockMvcResultMatchers.status().isCreated() )
+		   .andExpect( MockMvcResultMatchers.header().doesNotExist("Idempotent-Replayed") )
+		   .andExpect( MockMvcResultMatchers.jsonPath("id").value(2) );
+		
+		Mockito.verify(bookService, Mockito.times(2)).save(Mockito.any(Book.class));
+	}
+	
+	@Test
+	@DisplayName("Deve recusar a mesma Idempotency-Key com outro conteúdo")
+	public void createBookIdempotencyKeyReusedTest() throws Exception {
+		
+		//cenário
+		BDDMockito.given(bookService.save(Mockito.any(Book.class)))
+				  .willReturn(Book.builder().id(1L).author("Fulano").title("Aventuras").isbn("idem-1").build());
+		ObjectMapper objectMapper = new ObjectMapper();
+		
+		//execução
+		mvc.perform(MockMvcRequestBuilders.post(BOOK_API)
+				.header("Idempotency-Key", "chave-2")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(BookDTO.builder().author("Fulano").title("Aventuras").isbn("idem-1").build())))
+		   .andExpect( MockMvcResultMatchers.status().isCreated() );
+		
+		//verificação
+		mvc.perform(MockMvcRequestBuilders.post(BOOK_API)
+				.header("Idempotency-Key", "chave-2")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(BookDTO.builder().author("Fulano").title("Aventuras").isbn("idem-2").build())))
+		   .andExpect( MockMvcResultMatchers.status().isUnprocessableEntity() );
+		
+		Mockito.verify(bookService, Mockito.times(1)).save(Mockito.any(Book.class));
+	}
+	
+	@Test
+	@DisplayName("Deve criar um livro e responder em CBOR quando solicitado")
+	public void createBookCborTest() throws Exception {
+		
+		//cenário
+		CBORMapper cborMapper = new CBORMapper();
+		Book savedBook = Book.builder().id(1L).author("Manel Loureiro").title("Apocalipse Z").isbn("321").build();
+		BDDMockito.given(bookService.save(Mockito.any(Book.class))).willReturn(savedBook);
+		byte[] body = cborMapper.writeValueAsBytes(createNewBook());
+		
+		//execução
+		MvcResult result = mvc
+			.perform(MockMvcRequestBuilders.post(BOOK_API)
+					.contentType(MediaType.APPLICATION_CBOR)
+					.accept(MediaType.APPLICATION_CBOR)
+					.content(body))
+			.andExpect( MockMvcResultMatchers.status().isCreated() )
+			.andExpect( MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR) )
+			.andReturn();
+		
+		//verificação
+		BookDTO created = cborMapper.readValue(result.getResponse().getContentAsByteArray(), BookDTO.class);
+		org.junit.jupiter.api.Assertions.assertEquals(BookDTO.builder().id(1L).author("Manel Loureiro").title("Apocalipse Z").isbn("321").build(), created);
+		org.junit.jupiter.api.Assertions.assertTrue(body.length < new ObjectMapper().writeValueAsBytes(createNewBook()).length);
+	}
+	
+	@Test
+	@DisplayName("Deve responder lotes e erros em CBOR quando solicitado")
+	public void cborBatchAndErrorsTest() throws Exception {
+		
+		//cenário
+		CBORMapper cborMapper = new CBORMapper();
+		Book book = Book.builder().id(3L).title("Aventuras").author("Fulano").isbn("123").build();
+		BDDMockito.given(bookService.getAllById(Arrays.asList(3L, 2L))).willReturn(Arrays.asList(book, null));
+		BDDMockito.given(bookService.save(Mockito.any(Book.class))).willThrow(new BusinessException("Isbn já cadastrado."));
+		
+		//execução
+		MvcResult batch = mvc
+			.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/batch?ids=3,2")).accept(MediaType.APPLICATION_CBOR))
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andReturn();
+		MvcResult error = mvc
+			.perform(MockMvcRequestBuilders.post(BOOK_API)
+					.contentType(MediaType.APPLICATION_CBOR)
+					.accept(MediaType.APPLICATION_CBOR)
+					.content(cborMapper.writeValueAsBytes(createNewBook())))
+			.andExpect( MockMvcResultMatchers.status().isBadRequest() )
+			.andExpect( MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR) )
+			.andReturn();
+		
+		mvc
+			.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/batch?ids=3,2")))
+			.andExpect( MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON) );
+		
+		//verificação
+		BookBatchDTO batchDto = cborMapper.readValue(batch.getResponse().getContentAsByteArray(), BookBatchDTO.class);
+		org.junit.jupiter.api.Assertions.assertEquals(Long.valueOf(3), batchDto.getBooks().get(0).getId());
+		org.junit.jupiter.api.Assertions.assertEquals(Collections.singletonList(2L), batchDto.getMissingIds());
+		JsonNode errors = cborMapper.readTree(error.getResponse().getContentAsByteArray());
+		org.junit.jupiter.api.Assertions.assertEquals("Isbn já cadastrado.", errors.get("errors").get(0).asText());
+	}
+	
 	@Test
 	@DisplayName("Deve lançar erro de validação quando não houver dados suficientes para criação do livro.")
 	public void createInvalidBookTest() throws Exception {
@@ -142,6 +320,95 @@ public class BookControllerTest {
 		
 	}
 	
+	@Test
+	@DisplayName("Deve obter um lote de livros na ordem informada, listando os ids inexistentes")
+	public void getBookBatchTest() throws Exception {
+		
+		//cenário
+		Book first = Book.builder().id(3L).title("Aventuras").author("Fulano").isbn("123").build();
+		Book second = Book.builder().id(1L).title("Outro").author("Ciclano").isbn("456").build();
+		BDDMockito.given(bookService.getAllById(Arrays.asList(3L, 2L, 1L)))
+				  .willReturn(Arrays.asList(first, null, second));
+		
+		//execução
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/batch?ids=3,2,1,3"))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		//verificação
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.jsonPath("books[*].id", Matchers.contains(3, 1)) )
+			.andExpect( MockMvcResultMatchers.jsonPath("missingIds", Matchers.contains(2)) );
+	}
+	
+	@Test
+	@DisplayName("Deve obter as alterações depois do token informado e devolver o token seguinte")
+	public void getChangesTest() throws Exception {
+		
+		//cenário
+		BookChangeCursor since = new BookChangeCursor(Instant.parse("2024-01-01T10:00:00Z"), 3L, Instant.EPOCH, 0L);
+		BookChangeCursor next = new BookChangeCursor(Instant.parse("2024-01-01T10:05:00Z"), 4L, Instant.parse("2024-01-01T10:01:00Z"), 2L);
+		Book book = Book.builder().id(4L).title("Aventuras").author("Fulano").isbn("123").build();
+		BookTombstone tombstone = BookTombstone.builder().bookId(2L).isbn("456").build();
+		BDDMockito.given(bookService.findChanges(since, 1000))
+				  .willReturn(new BookChanges(Collections.singletonList(book), Collections.singletonList(tombstone), next, false));
+		
+		//execução
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/changes?since=" + since.toToken() + "&limit=5000"))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		//verificação
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.jsonPath("books[*].id", Matchers.contains(4)) )
+			.andExpect( MockMvcResultMatchers.jsonPath("deletedIds", Matchers.contains(2)) )
+			.andExpect( MockMvcResultMatchers.jsonPath("since").value(next.toToken()) )
+			.andExpect( MockMvcResultMatchers.jsonPath("hasMore").value(false) );
+		
+		org.junit.jupiter.api.Assertions.assertEquals(next, BookChangeCursor.parse(next.toToken()));
+	}
+	
+	@Test
+	@DisplayName("Deve recusar um token de sincronização inválido")
+	public void getChangesInvalidTokenTest() throws Exception {
+		
+		//execução
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/changes?since=invalido"))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		//verificação
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isBadRequest() )
+			.andExpect( MockMvcResultMatchers.jsonPath("errors[0]").value("Token de sincronização inválido.") );
+	}
+	
+	@Test
+	@DisplayName("Deve recusar um lote com mais ids que o limite")
+	public void getBookBatchTooLargeTest() throws Exception {
+		
+		//cenário
+		String ids = LongStream.rangeClosed(1, 201).mapToObj(String::valueOf).collect(Collectors.joining(","));
+		
+		//execução
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/batch?ids=" + ids))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		//verificação
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isBadRequest() )
+			.andExpect( MockMvcResultMatchers.jsonPath("errors[0]").value("O lote deve ter no máximo 200 ids.") );
+		
+		Mockito.verify(bookService, Mockito.never()).getAllById(Mockito.anyList());
+	}
+	
 	@Test
 	@DisplayName("Deve retornar resource not found quando o livro procurado não existir")
 	public void booknotFoundTest() throws Exception {
@@ -161,11 +428,57 @@ public class BookControllerTest {
 		
 	}
 	
+	@Test
+	@DisplayName("Deve obter um livro pelo isbn")
+	public void getBookByIsbnTest() throws Exception {
+		
+		//cenário
+		Long id = 1L;
+		Book book = Book.builder().id(id).title("As aventuras").author("Artur").isbn("978-0-306-40615-7").version(1L).build();
+		
+		BDDMockito.given(bookService.findIdByIsbn("0-306-40615-2")).willReturn(OptionalLong.of(id));
+		BDDMockito.given(bookService.getById(id)).willReturn(Optional.of(book));
+		
+		//execução
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/isbn/0-306-40615-2")) 
+				.accept(MediaType.APPLICATION_JSON);
+		
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.header().exists(HttpHeaders.ETAG) )
+			.andExpect( MockMvcResultMatchers.jsonPath("id").value(id) )
+			.andExpect( MockMvcResultMatchers.jsonPath("isbn").value("978-0-306-40615-7") );
+		
+	}
+	
+	@Test
+	@DisplayName("Deve retornar 404 para isbn não cadastrado e erro de negócio para isbn inválido")
+	public void getBookByIsbnErrorsTest() throws Exception {
+		
+		//cenário
+		BDDMockito.given(bookService.findIdByIsbn("9783161484100")).willReturn(OptionalLong.empty());
+		BDDMockito.given(bookService.findIdByIsbn("9783161484101")).willThrow(new BusinessException("Isbn inválido."));
+		
+		//execução / verificação
+		mvc
+			.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/isbn/9783161484100")).accept(MediaType.APPLICATION_JSON))
+			.andExpect( MockMvcResultMatchers.status().isNotFound() );
+		
+		mvc
+			.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/isbn/9783161484101")).accept(MediaType.APPLICATION_JSON))
+			.andExpect( MockMvcResultMatchers.status().isBadRequest() )
+			.andExpect( MockMvcResultMatchers.jsonPath("errors[0]").value("Isbn inválido.") );
+		
+		Mockito.verify(bookService, Mockito.never()).getById(Mockito.anyLong());
+	}
+	
 	@Test
 	@DisplayName("Deve deletar um livro")
 	public void deleteBookTest() throws Exception {
 		
-		BDDMockito.given(bookService.getById(Mockito.anyLong())).willReturn(Optional.of(Book.builder().id(11L).build()));
+		BDDMockito.given(bookService.deleteById(1L)).willReturn(true);
 		
 		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
 				.delete(BOOK_API.concat("/" + 1));
@@ -173,13 +486,15 @@ public class BookControllerTest {
 		mvc
 			.perform(request)
 			.andExpect(MockMvcResultMatchers.status().isNoContent());
+		
+		Mockito.verify(bookService, Mockito.never()).getById(Mockito.anyLong());
 	}
 	
 	@Test
 	@DisplayName("Deve resource not found quando não encontrar o livro para deletar")
 	public void deleteNotFoundBookTest() throws Exception {
 		
-		BDDMockito.given(bookService.getById(Mockito.anyLong())).willReturn(Optional.empty());
+		BDDMockito.given(bookService.deleteById(Mockito.anyLong())).willReturn(false);
 		
 		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
 				.delete(BOOK_API.concat("/" + 1));
@@ -195,15 +510,12 @@ public class BookControllerTest {
 		
 		Long id = 1L;
 		
-		String json = new ObjectMapper().writeValueAsString(createNewBook());
-		
-		Book updatingBook = Book.builder().id(1L).title("some title").author("some author").isbn("321").build();
-		
-		BDDMockito.given(bookService.getById(id)).willReturn(Optional.of(updatingBook));
+		String json = new ObjectMapper().writeValueAsString(createBookUpdate());
 		
 		Book updatedBook = Book.builder().id(id).author("Manel Loureiro").title("Apocalipse Z").isbn("321").build();
 		
-		BDDMockito.given(bookService.update(updatingBook)).willReturn(updatedBook);
+		Book changes = Book.builder().title("Apocalipse Z").author("Manel Loureiro").build();
+		BDDMockito.given(bookService.update(id, changes, null)).willReturn(Optional.of(updatedBook));
 		
 		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
 				.put(BOOK_API.concat("/" + 1))
@@ -218,15 +530,125 @@ public class BookControllerTest {
 			.andExpect( MockMvcResultMatchers.jsonPath("title").value(createNewBook().getTitle()) )
 			.andExpect( MockMvcResultMatchers.jsonPath("author").value(createNewBook().getAuthor()) )
 			.andExpect( MockMvcResultMatchers.jsonPath("isbn").value("321") );
+		
+		Mockito.verify(bookService).update(id, changes, null);
+	}
+	
+	@Test
+	@DisplayName("Deve lançar erro de validação ao atualizar um livro sem título ou autor")
+	public void updateInvalidBookTest() throws Exception {
+		
+		//cenário
+		String json = new ObjectMapper().writeValueAsString(BookUpdateDTO.builder().title(" ").build());
+		
+		//execução / verificação
+		mvc
+			.perform(MockMvcRequestBuilders.put(BOOK_API.concat("/1")).contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect( MockMvcResultMatchers.status().isBadRequest() )
+			.andExpect( MockMvcResultMatchers.jsonPath("errors", Matchers.hasSize(1)) );
+		
+		Mockito.verifyNoInteractions(bookService);
+	}
+	
+	@Test
+	@DisplayName("Deve informar ETag e Last-Modified ao obter um livro")
+	public void getBookValidatorsTest() throws Exception {
+		
+		//cenário
+		BDDMockito.given(bookService.getById(1L)).willReturn(Optional.of(createVersionedBook(3L)));
+		
+		//execução / verificação
+		mvc
+			.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON))
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"3\"") )
+			.andExpect( MockMvcResultMatchers.header().string(HttpHeaders.LAST_MODIFIED, "Mon, 01 Jan 2024 10:00:00 GMT") );
+	}
+	
+	@Test
+	@DisplayName("Deve retornar 304 sem corpo quando o ETag ou a data informados ainda forem atuais")
+	public void getBookNotModifiedTest() throws Exception {
+		
+		//cenário
+		BDDMockito.given(bookService.getById(1L)).willReturn(Optional.of(createVersionedBook(3L)));
+		
+		//execução / verificação
+		mvc
+			.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+			.andExpect( MockMvcResultMatchers.status().isNotModified() )
+			.andExpect( MockMvcResultMatchers.content().string("") );
+		
+		mvc
+			.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).header(HttpHeaders.IF_MODIFIED_SINCE, "Mon, 01 Jan 2024 10:00:00 GMT"))
+			.andExpect( MockMvcResultMatchers.status().isNotModified() );
+		
+		mvc
+			.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.jsonPath("id").value(1) );
+	}
+	
+	@Test
+	@DisplayName("Deve atualizar um livro quando o If-Match corresponder à versão atual")
+	public void updateBookIfMatchTest() throws Exception {
+		
+		//cenário
+		BDDMockito.given(bookService.update(Mockito.eq(1L), Mockito.any(Book.class), Mockito.eq(Arrays.asList(3L))))
+			.willReturn(Optional.of(createVersionedBook(4L)));
+		
+		//execução / verificação
+		mvc
+			.perform(updateRequest().header(HttpHeaders.IF_MATCH, "\"3\""))
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4\"") );
+	}
+	
+	@Test
+	@DisplayName("Deve retornar 412 ao atualizar um livro com If-Match de uma versão anterior")
+	public void updateBookStaleIfMatchTest() throws Exception {
+		
+		//cenário
+		BDDMockito.given(bookService.update(Mockito.eq(1L), Mockito.any(Book.class), Mockito.eq(Arrays.asList(2L))))
+			.willThrow(new OptimisticLockingFailureException("versão desatualizada"));
+		
+		//execução / verificação
+		mvc
+			.perform(updateRequest().header(HttpHeaders.IF_MATCH, "\"2\", W/\"3\""))
+			.andExpect( MockMvcResultMatchers.status().isPreconditionFailed() );
+		
+		mvc
+			.perform(updateRequest().header(HttpHeaders.IF_MATCH, "W/\"3\""))
+			.andExpect( MockMvcResultMatchers.status().isPreconditionFailed() );
+		
+		Mockito.verify(bookService, Mockito.times(1)).update(Mockito.anyLong(), Mockito.any(Book.class), Mockito.any());
+	}
+	
+	@Test
+	@DisplayName("Deve retornar 412 quando o livro for alterado entre a leitura e a gravação")
+	public void updateBookConcurrentModificationTest() throws Exception {
+		
+		//cenário
+		BDDMockito.given(bookService.update(Mockito.eq(1L), Mockito.any(Book.class), Mockito.any()))
+			.willThrow(new OptimisticLockingFailureException("versão desatualizada"));
+		
+		//execução / verificação
+		mvc
+			.perform(updateRequest().header(HttpHeaders.IF_MATCH, "\"3\""))
+			.andExpect( MockMvcResultMatchers.status().isPreconditionFailed() );
+		
+		mvc
+			.perform(updateRequest())
+			.andExpect( MockMvcResultMatchers.status().isConflict() )
+			.andExpect( MockMvcResultMatchers.jsonPath("errors[0]").value("O livro foi alterado por outra requisição.") );
 	}
 	
 	@Test
 	@DisplayName("Deve retornar um erro 404 ao tentar atualizar um livro inexistente")
 	public void updateInexistentBookTest() throws Exception {
 				
-		String json = new ObjectMapper().writeValueAsString(createNewBook());
+		String json = new ObjectMapper().writeValueAsString(createBookUpdate());
 				
-		BDDMockito.given(bookService.getById(Mockito.anyLong())).willReturn(Optional.empty());
+		BDDMockito.given(bookService.update(Mockito.anyLong(), Mockito.any(Book.class), Mockito.any())).willReturn(Optional.empty());
 		
 		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
 				.put(BOOK_API.concat("/" + 1))
@@ -239,6 +661,268 @@ public class BookControllerTest {
 			.andExpect(MockMvcResultMatchers.status().isNotFound());
 	}
 	
+	@Test
+	@DisplayName("Deve alterar apenas os campos informados de um livro")
+	public void patchBookTest() throws Exception {
+		
+		//cenário
+		Book patched = createVersionedBook(4L);
+		patched.setTitle("Novas Aventuras");
+		BDDMockito.given(bookService.patch(1L, Book.builder().title("Novas Aventuras").build(), Arrays.asList(3L))).willReturn(Optional.of(patched));
+		
+		//execução / verificação
+		mvc
+			.perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
+					.contentType(MediaType.APPLICATION_JSON)
+					.header(HttpHeaders.IF_MATCH, "\"3\"")
+					.content("{\"title\":\"Novas Aventuras\"}"))
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4\"") )
+			.andExpect( MockMvcResultMatchers.jsonPath("title").value("Novas Aventuras") )
+			.andExpect( MockMvcResultMatchers.jsonPath("author").value("Fulano") );
+		
+		Mockito.verify(bookService, Mockito.never()).getById(Mockito.anyLong());
+	}
+	
+	@Test
+	@DisplayName("Deve retornar 404 ou erro de negócio ao alterar parcialmente um livro inexistente ou com dados inválidos")
+	public void patchBookErrorsTest() throws Exception {
+		
+		//cenário
+		BDDMockito.given(bookService.patch(Mockito.eq(1L), Mockito.any(Book.class), Mockito.isNull())).willReturn(Optional.empty());
+		BDDMockito.given(bookService.patch(Mockito.eq(2L), Mockito.any(Book.class), Mockito.isNull()))
+			.willThrow(new BusinessException("O isbn do livro não pode ser alterado."));
+		
+		//execução / verificação
+		mvc
+			.perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/1")).contentType(MediaType.APPLICATION_JSON).content("{\"author\":\"Ciclano\"}"))
+			.andExpect( MockMvcResultMatchers.status().isNotFound() );
+		
+		mvc
+			.perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/2")).contentType(MediaType.APPLICATION_JSON).content("{\"isbn\":\"999\"}"))
+			.andExpect( MockMvcResultMatchers.status().isBadRequest() )
+			.andExpect( MockMvcResultMatchers.jsonPath("errors[0]").value("O isbn do livro não pode ser alterado.") );
+	}
+	
+	@Test
+	@DisplayName("Deve importar um lote de livros informando o resultado de cada item")
+	public void importBooksTest() throws Exception {
+		
+		BookDTO valid = createNewBook();
+		BookDTO invalid = BookDTO.builder().title("Sem autor").isbn("999").build();
+		BookDTO duplicated = BookDTO.builder().author("Fulano").title("Outro").isbn("123").build();
+		
+		String json = new ObjectMapper().writeValueAsString(Arrays.asList(valid, invalid, duplicated));
+		
+		Book savedBook = Book.builder().id(1L).author(valid.getAuthor()).title(valid.getTitle()).isbn(valid.getIsbn()).build();
+		
+		BDDMockito.given(bookService.saveAll(Mockito.anyList())).willReturn(Arrays.asList(savedBook, null));
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.post(BOOK_API.concat("/import"))
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(json);
+		
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(3)) )
+			.andExpect( MockMvcResultMatchers.jsonPath("[0].status").value("CREATED") )
+			.andExpect( MockMvcResultMatchers.jsonPath("[0].id").value(1) )
+			.andExpect( MockMvcResultMatchers.jsonPath("[1].status").value("INVALID") )
+			.andExpect( MockMvcResultMatchers.jsonPath("[1].errors", Matchers.hasSize(1)) )
+			.andExpect( MockMvcResultMatchers.jsonPath("[2].status").value("DUPLICATED") )
+			.andExpect( MockMvcResultMatchers.jsonPath("[2].errors[0]").value("Isbn já cadastrado.") );
+	}
+	
+	@Test
+	@DisplayName("Deve importar livros em NDJSON sem abortar a carga por causa de uma linha inválida")
+	public void importBooksNdjsonTest() throws Exception {
+		
+		ObjectMapper mapper = new ObjectMapper();
+		String ndjson = mapper.writeValueAsString(createNewBook()) + "\n"
+				+ "{\"title\": [\"x\"], \"author\": \"Fulano\", \"isbn\": \"1\"}\n"
+				+ mapper.writeValueAsString(BookDTO.builder().author("Fulano").title("Outro").isbn("123").build()) + "\n";
+		
+		BDDMockito.given(bookService.saveAll(Mockito.anyList())).willAnswer( invocation -> {
+			java.util.List<Book> books = invocation.getArgument(0);
+			books.forEach( book -> book.setId(10L) );
+			return books;
+		});
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.post(BOOK_API.concat("/import"))
+				.contentType("application/x-ndjson")
+				.accept(MediaType.APPLICATION_JSON)
+				.content(ndjson);
+		
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(3)) )
+			.andExpect( MockMvcResultMatchers.jsonPath("[0].status").value("CREATED") )
+			.andExpect( MockMvcResultMatchers.jsonPath("[1].status").value("INVALID") )
+			.andExpect( MockMvcResultMatchers.jsonPath("[2].status").value("CREATED") )
+			.andExpect( MockMvcResultMatchers.jsonPath("[2].isbn").value("123") );
+	}
+	
+	@Test
+	@DisplayName("Deve filtrar livros com paginação")
+	public void findBooksTest() throws Exception {
+		
+		Long id = 1L;
+		
+		Book book = Book.builder().id(id).title(createNewBook().getTitle()).author(createNewBook().getAuthor()).isbn(createNewBook().getIsbn()).build();
+		
+		BDDMockito.given(bookService.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+				  .willReturn(new PageImpl<Book>(Collections.singletonList(book), PageRequest.of(0, 100), 1));
+		
+		String queryString = String.format("?title=%s&author=%s&page=0&size=100", book.getTitle(), book.getAuthor());
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat(queryString))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)) )
+			.andExpect( MockMvcResultMatchers.jsonPath("totalElements").value(1) )
+			.andExpect( MockMvcResultMatchers.jsonPath("pageable.pageSize").value(100) )
+			.andExpect( MockMvcResultMatchers.jsonPath("pageable.pageNumber").value(0) );
+	}
+	
+	@Test
+	@DisplayName("Deve filtrar livros com paginação por chave a partir de um id")
+	public void findBooksAfterIdTest() throws Exception {
+		
+		Book book = Book.builder().id(51L).title(createNewBook().getTitle()).author(createNewBook().getAuthor()).isbn(createNewBook().getIsbn()).build();
+		
+		BDDMockito.given(bookService.findAfter(Mockito.any(Book.class), Mockito.eq(50L), Mockito.any(Pageable.class)))
+				  .willReturn(new SliceImpl<Book>(Collections.singletonList(book), PageRequest.of(0, 20), true));
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("?afterId=50&size=20"))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)) )
+			.andExpect( MockMvcResultMatchers.jsonPath("content[0].id").value(51) )
+			.andExpect( MockMvcResultMatchers.jsonPath("last").value(false) )
+			.andExpect( MockMvcResultMatchers.jsonPath("totalElements").doesNotExist() );
+	}
+	
+	@Test
+	@DisplayName("Deve buscar livros por palavras do título ou do autor")
+	public void searchBooksTest() throws Exception {
+		
+		Book book = Book.builder().id(1L).title(createNewBook().getTitle()).author(createNewBook().getAuthor()).isbn(createNewBook().getIsbn()).build();
+		
+		BDDMockito.given(bookService.search(Mockito.eq("aventuras fulano"), Mockito.any(Pageable.class)))
+				  .willReturn(new PageImpl<Book>(Collections.singletonList(book), PageRequest.of(0, 20), 1));
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/search"))
+				.param("q", "aventuras fulano")
+				.param("size", "20")
+				.accept(MediaType.APPLICATION_JSON);
+		
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)) )
+			.andExpect( MockMvcResultMatchers.jsonPath("content[0].id").value(1) )
+			.andExpect( MockMvcResultMatchers.jsonPath("totalElements").value(1) );
+	}
+	
+	@Test
+	@DisplayName("Deve buscar livros por palavras paginando por cursor")
+	public void searchBooksAfterTest() throws Exception {
+		
+		//cenário
+		Book book = Book.builder().id(7L).title(createNewBook().getTitle()).author(createNewBook().getAuthor()).isbn(createNewBook().getIsbn()).build();
+		BookSearchCursor after = new BookSearchCursor(1.5f, 3L);
+		BookSearchCursor next = new BookSearchCursor(1.25f, 7L);
+		BDDMockito.given(bookService.searchAfter("aventuras", after, 1))
+				  .willReturn(new BookSearchResult(Collections.singletonList(book), next, true));
+		
+		//execução / verificação
+		mvc
+			.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/search"))
+					.param("q", "aventuras")
+					.param("after", after.toToken())
+					.param("size", "1")
+					.accept(MediaType.APPLICATION_JSON))
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.jsonPath("books[0].id").value(7) )
+			.andExpect( MockMvcResultMatchers.jsonPath("after").value(next.toToken()) )
+			.andExpect( MockMvcResultMatchers.jsonPath("hasMore").value(true) );
+	}
+	
+	@Test
+	@DisplayName("Deve exportar o catálogo em NDJSON")
+	public void exportNdjsonTest() throws Exception {
+		
+		mockExport(
+				Book.builder().id(1L).title("Aventuras").author("Fulano").isbn("123").build(),
+				Book.builder().id(2L).title("Outro").author("Ciclano").isbn("456").build());
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/export"))
+				.accept("application/x-ndjson");
+		
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.content().contentTypeCompatibleWith("application/x-ndjson") )
+			.andExpect( MockMvcResultMatchers.content().string(
+					"{\"id\":1,\"title\":\"Aventuras\",\"author\":\"Fulano\",\"isbn\":\"123\"}\n"
+					+ "{\"id\":2,\"title\":\"Outro\",\"author\":\"Ciclano\",\"isbn\":\"456\"}\n") );
+	}
+	
+	@Test
+	@DisplayName("Deve exportar o catálogo em CSV")
+	public void exportCsvTest() throws Exception {
+		
+		mockExport(Book.builder().id(1L).title("Aventuras, \"parte 1\"").author("Fulano").isbn("123").build());
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/export"))
+				.accept("text/csv");
+		
+		mvc
+			.perform(request)
+			.andExpect( MockMvcResultMatchers.status().isOk() )
+			.andExpect( MockMvcResultMatchers.content().string(
+					"id,title,author,isbn\n1,\"Aventuras, \"\"parte 1\"\"\",Fulano,123\n") );
+	}
+	
+	private void mockExport(Book... books) {
+		BDDMockito.willAnswer( invocation -> {
+			Consumer<Book> action = invocation.getArgument(0);
+			Arrays.asList(books).forEach(action);
+			return null;
+		}).given(bookService).exportAll(Mockito.any());
+	}
+	
+	private Book createVersionedBook(Long version) {
+		return Book.builder().id(1L).title("Aventuras").author("Fulano").isbn("123")
+				.version(version).lastModified(Instant.parse("2024-01-01T10:00:00.500Z")).build();
+	}
+	
+	private MockHttpServletRequestBuilder updateRequest() throws Exception {
+		return MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(createBookUpdate()));
+	}
+	
+	private BookUpdateDTO createBookUpdate() {
+		return BookUpdateDTO.builder().author("Manel Loureiro").title("Apocalipse Z").build();
+	}
+	
 	private BookDTO createNewBook() {
 		return BookDTO.builder().author("Manel Loureiro").title("Apocalipse Z").isbn("321").build();
 	}
@@ -0,0 +1,137 @@
+package com.lucassilva.libraryapi.api.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lucassilva.libraryapi.api.dto.BookEventDTO;
+import com.lucassilva.libraryapi.api.service.BookService;
+import com.lucassilva.libraryapi.model.entity.Book;
+import com.lucassilva.libraryapi.model.entity.BookEvent.Type;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "library.books.events.relay-interval-ms=100")
+public class BookEventControllerTest {
+
+	static String EVENTS_API = "/api/books/events";
+
+	static ParameterizedTypeReference<ServerSentEvent<BookEventDTO>> SSE_TYPE = new ParameterizedTypeReference<ServerSentEvent<BookEventDTO>>() {};
+
+	@Autowired
+	WebTestClient client;
+
+	@Autowired
+	BookService bookService;
+
+	@Autowired
+	BookEventFeed eventFeed;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	@Test
+	@DisplayName("Deve publicar as alterações confirmadas em ordem e retomar o feed pelo último offset")
+	public void eventFeedTest() {
+
+		//cenário
+		long start = lastOffset();
+		Book book = bookService.save(Book.builder().title("Aventuras").author("Fulano").isbn("e-123").build());
+		book.setTitle("Novas Aventuras");
+		book = bookService.update(book);
+		bookService.delete(book);
+
+		transactionTemplate.executeWithoutResult( status -> {
+			bookService.save(Book.builder().title("Desfeito").author("Fulano").isbn("e-456").build());
+			status.setRollbackOnly();
+		});
+		eventFeed.relay();
+
+		//execução
+		List<BookEventDTO> events = client.get().uri(EVENTS_API + "?after=" + start)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(BookEventDTO.class)
+				.returnResult()
+				.getResponseBody();
+
+		//verificações
+		assertThat(events).extracting(BookEventDTO::getType).containsExactly(Type.CREATED, Type.UPDATED, Type.DELETED);
+		assertThat(events).extracting(BookEventDTO::getOffset).containsExactly(start + 1, start + 2, start + 3);
+		assertThat(events).extracting(BookEventDTO::getBookId).containsOnly(book.getId());
+		assertThat(events.get(1).getTitle()).isEqualTo("Novas Aventuras");
+
+		Flux<ServerSentEvent<BookEventDTO>> resumed = client.get().uri(EVENTS_API + "/stream")
+				.accept(MediaType.TEXT_EVENT_STREAM)
+				.header("Last-Event-ID", String.valueOf(start + 1))
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(SSE_TYPE)
+				.getResponseBody();
+
+		StepVerifier.create(resumed.take(3))
+				.assertNext( event -> assertThat(event.comment()).isEqualTo("offset " + (start + 1)) )
+				.assertNext( event -> assertThat(event.id()).isEqualTo(String.valueOf(start + 2)) )
+				.assertNext( event -> {
+					assertThat(event.id()).isEqualTo(String.valueOf(start + 3));
+					assertThat(event.event()).isEqualTo("DELETED");
+				})
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	@DisplayName("Deve entregar aos assinantes do feed as alterações feitas depois da assinatura")
+	public void liveEventFeedTest() {
+
+		//cenário
+		eventFeed.relay();
+		long start = lastOffset();
+
+		Flux<ServerSentEvent<BookEventDTO>> stream = client.get().uri(EVENTS_API + "/stream?after=" + start)
+				.accept(MediaType.TEXT_EVENT_STREAM)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(SSE_TYPE)
+				.getResponseBody();
+
+		//execução / verificações
+		StepVerifier.create(stream.take(2))
+				.assertNext( event -> assertThat(event.comment()).isEqualTo("offset " + start) )
+				.then( () -> bookService.save(Book.builder().title("Ao Vivo").author("Fulano").isbn("e-789").build()) )
+				.assertNext( event -> {
+					assertThat(event.id()).isEqualTo(String.valueOf(start + 1));
+					assertThat(event.data().getTitle()).isEqualTo("Ao Vivo");
+				})
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	private long lastOffset() {
+		List<BookEventDTO> events = client.get().uri(EVENTS_API + "?after=0&limit=1000")
+				.exchange()
+				.expectBodyList(BookEventDTO.class)
+				.returnResult()
+				.getResponseBody();
+		return events.isEmpty() ? 0 : events.get(events.size() - 1).getOffset();
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.lucassilva.libraryapi.api.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.lucassilva.libraryapi.exception.BusinessException;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class IdempotencyStoreTest {
+
+	IdempotencyStore store = new IdempotencyStore(1000, 60_000, 5_000);
+	
+	@Test
+	@DisplayName("Deve executar uma única vez as requisições simultâneas com a mesma chave")
+	public void coalesceConcurrentDuplicatesTest() throws Exception {
+		
+		//cenário
+		int requests = 8;
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(requests);
+		
+		//execução
+		List<Future<IdempotencyStore.Result<String>>> results = IntStream.range(0, requests)
+				.mapToObj( i -> executor.submit( () -> store.execute("chave", "livro", () -> {
+					executions.incrementAndGet();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						throw new IllegalStateException(e);
+					}
+					return "criado";
+				})))
+				.collect(Collectors.toList());
+		Thread.sleep(200);
+		release.countDown();
+		
+		//verificações
+		for (Future<IdempotencyStore.Result<String>> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS).getValue()).isEqualTo("criado");
+		}
+		assertThat(executions.get()).isEqualTo(1);
+		assertThat(results.stream().filter( result -> !getQuietly(result).isReplayed() ).count()).isEqualTo(1);
+		executor.shutdown();
+	}
+	
+	@Test
+	@DisplayName("Deve repetir a BusinessException e permitir nova tentativa após falha inesperada")
+	public void failuresTest() {
+		
+		//cenário
+		AtomicInteger executions = new AtomicInteger();
+		
+		//execução / verificações
+		Assertions.assertThrows(BusinessException.class, () -> store.execute("duplicado", "livro", () -> {
+			executions.incrementAndGet();
+			throw new BusinessException("Isbn já cadastrado.");
+		}));
+		BusinessException replayed = Assertions.assertThrows(BusinessException.class,
+				() -> store.execute("duplicado", "livro", () -> executions.incrementAndGet()));
+		assertThat(replayed.getMessage()).isEqualTo("Isbn já cadastrado.");
+		assertThat(executions.get()).isEqualTo(1);
+		
+		Assertions.assertThrows(IllegalStateException.class, () -> store.execute("instavel", "livro", () -> {
+			throw new IllegalStateException("banco indisponível");
+		}));
+		IdempotencyStore.Result<String> retried = store.execute("instavel", "livro", () -> "criado");
+		assertThat(retried.getValue()).isEqualTo("criado");
+		assertThat(retried.isReplayed()).isFalse();
+	}
+	
+	private static <T> T getQuietly(Future<T> future) {
+		try {
+			return future.get();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+}
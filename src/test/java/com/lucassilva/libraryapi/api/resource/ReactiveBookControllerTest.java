@@ -0,0 +1,229 @@
+package com.lucassilva.libraryapi.api.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.lucassilva.libraryapi.api.dto.BookDTO;
+import com.lucassilva.libraryapi.api.dto.BookUpdateDTO;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles({ "test", "reactive" })
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+public class ReactiveBookControllerTest {
+
+	static String BOOK_API = "/api/books";
+	
+	@Autowired
+	WebTestClient client;
+	
+	@Test
+	@DisplayName("Deve criar, obter, atualizar e deletar um livro pela API reativa")
+	public void bookLifecycleTest() {
+		
+		BookDTO created = create(BookDTO.builder().author("Manel Loureiro").title("Apocalipse Z").isbn("r-321").build());
+		
+		assertThat(created.getId()).isNotNull();
+		
+		client.get().uri(BOOK_API + "/" + created.getId())
+			  .exchange()
+			  .expectStatus().isOk()
+			  .expectBody()
+			  .jsonPath("title").isEqualTo("Apocalipse Z")
+			  .jsonPath("isbn").isEqualTo("r-321");
+		
+		client.put().uri(BOOK_API + "/" + created.getId())
+			  .contentType(MediaType.APPLICATION_JSON)
+			  .bodyValue(BookDTO.builder().author("Outro Autor").title("Outro Título").build())
+			  .exchange()
+			  .expectStatus().isOk()
+			  .expectBody()
+			  .jsonPath("title").isEqualTo("Outro Título")
+			  .jsonPath("isbn").isEqualTo("r-321");
+		
+		client.delete().uri(BOOK_API + "/" + created.getId())
+			  .exchange()
+			  .expectStatus().isNoContent();
+		
+		client.get().uri(BOOK_API + "/" + created.getId())
+			  .exchange()
+			  .expectStatus().isNotFound();
+	}
+	
+	@Test
+	@DisplayName("Deve atualizar e deletar um livro pela API reativa apenas na versão informada no If-Match")
+	public void conditionalUpdateAndDeleteTest() {
+		
+		//cenário
+		BookDTO created = create(BookDTO.builder().author("Fulano").title("Aventuras").isbn("r-if-match").build());
+		String uri = BOOK_API + "/" + created.getId();
+		
+		client.get().uri(uri)
+			  .exchange()
+			  .expectStatus().isOk()
+			  .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"");
+		
+		//execução / verificações
+		client.put().uri(uri)
+			  .contentType(MediaType.APPLICATION_JSON)
+			  .bodyValue(BookUpdateDTO.builder().title("Aventuras").build())
+			  .exchange()
+			  .expectStatus().isBadRequest()
+			  .expectBody()
+			  .jsonPath("errors.length()").isEqualTo(1);
+		
+		client.put().uri(uri)
+			  .contentType(MediaType.APPLICATION_JSON)
+			  .header(HttpHeaders.IF_MATCH, "\"0\"")
+			  .bodyValue(BookUpdateDTO.builder().author("Ciclano").title("Novas Aventuras").build())
+			  .exchange()
+			  .expectStatus().isOk()
+			  .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+			  .expectBody()
+			  .jsonPath("title").isEqualTo("Novas Aventuras");
+		
+		client.put().uri(uri)
+			  .contentType(MediaType.APPLICATION_JSON)
+			  .header(HttpHeaders.IF_MATCH, "\"0\"")
+			  .bodyValue(BookUpdateDTO.builder().author("Beltrano").title("Velhas Aventuras").build())
+			  .exchange()
+			  .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+		
+		client.delete().uri(uri)
+			  .header(HttpHeaders.IF_MATCH, "\"0\"")
+			  .exchange()
+			  .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+		
+		client.delete().uri(uri)
+			  .header(HttpHeaders.IF_MATCH, "\"1\"")
+			  .exchange()
+			  .expectStatus().isNoContent();
+		
+		client.delete().uri(uri)
+			  .exchange()
+			  .expectStatus().isNotFound();
+		
+		client.put().uri(uri)
+			  .contentType(MediaType.APPLICATION_JSON)
+			  .bodyValue(BookUpdateDTO.builder().author("Ciclano").title("Novas Aventuras").build())
+			  .exchange()
+			  .expectStatus().isNotFound();
+	}
+	
+	@Test
+	@DisplayName("Deve criar e obter um livro em CBOR pela API reativa")
+	public void cborTest() throws Exception {
+		
+		CBORMapper cborMapper = new CBORMapper();
+		
+		byte[] created = client.post().uri(BOOK_API)
+			  .contentType(MediaType.APPLICATION_CBOR)
+			  .accept(MediaType.APPLICATION_CBOR)
+			  .bodyValue(cborMapper.writeValueAsBytes(BookDTO.builder().author("Fulano").title("Binário").isbn("r-cbor").build()))
+			  .exchange()
+			  .expectStatus().isCreated()
+			  .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+			  .expectBody(byte[].class)
+			  .returnResult()
+			  .getResponseBody();
+		Long id = cborMapper.readValue(created, BookDTO.class).getId();
+		
+		byte[] found = client.get().uri(BOOK_API + "/" + id)
+			  .accept(MediaType.APPLICATION_CBOR)
+			  .exchange()
+			  .expectStatus().isOk()
+			  .expectBody(byte[].class)
+			  .returnResult()
+			  .getResponseBody();
+		
+		assertThat(cborMapper.readValue(found, BookDTO.class).getTitle()).isEqualTo("Binário");
+	}
+	
+	@Test
+	@DisplayName("Deve lançar erro ao criar livro inválido ou com isbn duplicado pela API reativa")
+	public void createInvalidBookTest() {
+		
+		create(BookDTO.builder().author("Fulano").title("Aventuras").isbn("r-123").build());
+		
+		client.post().uri(BOOK_API)
+			  .contentType(MediaType.APPLICATION_JSON)
+			  .bodyValue(BookDTO.builder().author("Ciclano").title("Outro").isbn("r-123").build())
+			  .exchange()
+			  .expectStatus().isBadRequest()
+			  .expectBody()
+			  .jsonPath("errors[0]").isEqualTo("Isbn já cadastrado.");
+		
+		client.post().uri(BOOK_API)
+			  .contentType(MediaType.APPLICATION_JSON)
+			  .bodyValue(new BookDTO())
+			  .exchange()
+			  .expectStatus().isBadRequest()
+			  .expectBody()
+			  .jsonPath("errors.length()").isEqualTo(3);
+	}
+	
+	@Test
+	@DisplayName("Deve filtrar, paginar por chave e exportar livros pela API reativa")
+	public void findAndExportBooksTest() {
+		
+		BookDTO first = create(BookDTO.builder().author("Busca").title("Reativo 1").isbn("r-1").build());
+		BookDTO second = create(BookDTO.builder().author("Busca").title("Reativo 2").isbn("r-2").build());
+		
+		client.get().uri(BOOK_API + "?author=Busca&title=Reativo&page=0&size=1")
+			  .exchange()
+			  .expectStatus().isOk()
+			  .expectBody()
+			  .jsonPath("content.length()").isEqualTo(1)
+			  .jsonPath("totalElements").isEqualTo(2);
+		
+		client.get().uri(BOOK_API + "?author={author}", "Bus_a")
+			  .exchange()
+			  .expectStatus().isOk()
+			  .expectBody()
+			  .jsonPath("totalElements").isEqualTo(0);
+		
+		client.get().uri(BOOK_API + "?author=Busca&afterId=" + first.getId())
+			  .exchange()
+			  .expectStatus().isOk()
+			  .expectBody()
+			  .jsonPath("content[0].id").isEqualTo(second.getId())
+			  .jsonPath("last").isEqualTo(true);
+		
+		List<BookDTO> exported = client.get().uri(BOOK_API + "/export")
+			  .accept(MediaType.APPLICATION_NDJSON)
+			  .exchange()
+			  .expectStatus().isOk()
+			  .returnResult(BookDTO.class)
+			  .getResponseBody()
+			  .collectList()
+			  .block();
+		
+		assertThat(exported).extracting(BookDTO::getIsbn).contains("r-1", "r-2");
+	}
+	
+	private BookDTO create(BookDTO dto) {
+		return client.post().uri(BOOK_API)
+					 .contentType(MediaType.APPLICATION_JSON)
+					 .bodyValue(dto)
+					 .exchange()
+					 .expectStatus().isCreated()
+					 .expectBody(BookDTO.class)
+					 .returnResult()
+					 .getResponseBody();
+	}
+	
+}
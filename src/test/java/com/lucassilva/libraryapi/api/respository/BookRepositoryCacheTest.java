@@ -0,0 +1,134 @@
+package com.lucassilva.libraryapi.api.respository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.lucassilva.libraryapi.api.repository.BookRepository;
+import com.lucassilva.libraryapi.api.service.BookService;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookRepositoryCacheTest {
+
+	@Autowired
+	BookRepository repository;
+	
+	@Autowired
+	BookService bookService;
+	
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+	
+	Statistics statistics;
+	
+	@BeforeEach
+	public void setup() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		// desligadas por padrão em application.properties
+		statistics.setStatisticsEnabled(true);
+	}
+	
+	@Test
+	@DisplayName("Deve obter o livro do cache de segundo nível sem SQL e refletir as gravações feitas pelo serviço")
+	public void findByIdFromSecondLevelCacheTest() {
+		
+		//cenário
+		Book book = bookService.save(Book.builder().title("Região Primeira").author("Fulano").isbn("l2-101").build());
+		repository.findById(book.getId());
+		long statements = statistics.getPrepareStatementCount();
+		long hits = statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount();
+		
+		//execução
+		Book cached = repository.findById(book.getId()).get();
+		
+		//verificações
+		assertThat(cached.getTitle()).isEqualTo("Região Primeira");
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+		assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount()).isEqualTo(hits + 1);
+		
+		//execução
+		bookService.patch(book.getId(), Book.builder().title("Região Segunda").build(), Arrays.asList(book.getVersion()));
+		
+		//verificações
+		assertThat(repository.findById(book.getId()).get().getTitle()).isEqualTo("Região Segunda");
+		
+		//execução
+		bookService.deleteById(book.getId());
+		
+		//verificações
+		assertThat(repository.findById(book.getId())).isEmpty();
+	}
+	
+	@Test
+	@DisplayName("Deve tirar do cache de segundo nível o livro alterado ou removido pelos comandos em massa")
+	public void writesEvictTheirBookTest() {
+		
+		//cenário
+		Book changed = bookService.save(Book.builder().title("Região Quarta").author("Fulano").isbn("l2-301").build());
+		repository.findById(changed.getId());
+		Cache cache = entityManagerFactory.getCache();
+		
+		//execução
+		bookService.patch(changed.getId(), Book.builder().title("Região Sexta").build(), null);
+		
+		//verificações
+		assertThat(cache.contains(Book.class, changed.getId())).isFalse();
+		assertThat(repository.findById(changed.getId()).get().getTitle()).isEqualTo("Região Sexta");
+		
+		//execução
+		bookService.update(changed.getId(), Book.builder().title("Região Sétima").author("Ciclano").build(), null);
+		
+		//verificações
+		assertThat(cache.contains(Book.class, changed.getId())).isFalse();
+		assertThat(repository.findById(changed.getId()).get().getTitle()).isEqualTo("Região Sétima");
+		
+		//execução
+		bookService.deleteById(changed.getId());
+		
+		//verificações
+		assertThat(cache.contains(Book.class, changed.getId())).isFalse();
+		assertThat(repository.findById(changed.getId())).isEmpty();
+	}
+	
+	@Test
+	@DisplayName("Deve responder consultas repetidas pelo cache de consultas até uma gravação na tabela de livros")
+	public void searchFromQueryCacheTest() {
+		
+		//cenário
+		repository.search(null, null, "l2-201", PageRequest.of(0, 10));
+		long statements = statistics.getPrepareStatementCount();
+		
+		//execução
+		Page<Book> cached = repository.search(null, null, "l2-201", PageRequest.of(0, 10));
+		
+		//verificações
+		assertThat(cached).isEmpty();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+		
+		//execução
+		bookService.save(Book.builder().title("Região Terceira").author("Fulano").isbn("l2-201").build());
+		
+		//verificações
+		assertThat(repository.search(null, null, "l2-201", PageRequest.of(0, 10))).extracting(Book::getIsbn).containsExactly("l2-201");
+	}
+	
+}
@@ -2,19 +2,35 @@ package com.lucassilva.libraryapi.api.respository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.lucassilva.libraryapi.api.repository.BookRepository;
+import com.lucassilva.libraryapi.api.repository.BookTombstoneRepository;
 import com.lucassilva.libraryapi.model.entity.Book;
+import com.lucassilva.libraryapi.model.entity.BookTombstone;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -27,92 +43,291 @@ public class BookRepositoryTest {
 	@Autowired
 	BookRepository repository;
 	
+	@Autowired
+	BookTombstoneRepository tombstoneRepository;
+	
 	@Test
-	@DisplayName("Deve retornar verdadeiro quando existir um livro na base com isbn informado")
-	public void returnTrueWhenIsbnExists() {
+	@DisplayName("Deve obter um livro por ID")
+	public void findByIdTest() {
 		//cenário
 		
-		String isbn = "123";
-		Book book = Book.builder().title("Aventuras").author("Fulano").isbn(isbn).build();
+		Book book = Book.builder().title("Aventuras").author("Fulano").isbn("1234").build();
 		
 		entityManager.persist(book);
 		
 		//execução
-		boolean exists = repository.existsByIsbn(isbn);
+		Optional<Book> foundBook = repository.findById(book.getId());
 		
 		//verificação
-		assertThat(exists).isTrue();
+		assertThat(foundBook.isPresent()).isTrue();
 	}
 	
 	@Test
-	@DisplayName("Deve retornar falso quando não existir um livro na base com isbn informado")
-	public void returnFalseWhenIsbnDoesntExists() {
+	@DisplayName("Deve salvar um livro")
+	public void saveBookTest() {
+		
 		//cenário
+		Book book = Book.builder().title("Aventuras").author("Fulano").isbn("1234").build();
+		
+		//execução
+		Book savedBook = repository.save(book);
+		
+		//verificação
+		assertThat(savedBook.getId()).isNotNull();
+
+	}
+	
+	@Test
+	@DisplayName("Deve deletar um livro")
+	public void deleteBookTest() {
 		
-		String isbn = "123";
+		//cenário
 		Book book = Book.builder().title("Aventuras").author("Fulano").isbn("1234").build();
 		
 		entityManager.persist(book);
 		
+		Book foundBook = entityManager.find(Book.class, book.getId());
+		
 		//execução
-		boolean exists = repository.existsByIsbn(isbn);
+		repository.delete(foundBook);
 		
 		//verificação
-		assertThat(exists).isFalse();
+		Book deletedBook = entityManager.find(Book.class, book.getId());
+
+		assertThat(deletedBook).isNull();
+		
+	}
+
+	@Test
+	@DisplayName("Deve retornar apenas os isbns já cadastrados entre os informados")
+	public void findExistingIsbnsTest() {
+		//cenário
+		entityManager.persist(Book.builder().title("Aventuras").author("Fulano").isbn("123").build());
+		entityManager.persist(Book.builder().title("Aventuras 2").author("Fulano").isbn("456").build());
+		
+		//execução
+		Set<String> isbns = repository.findExistingIsbns(Arrays.asList("123", "789"));
+		
+		//verificação
+		assertThat(isbns).containsExactly("123");
+	}
+
+	@Test
+	@DisplayName("Deve buscar livros pelo prefixo do título com paginação")
+	public void searchTest() {
+		//cenário
+		entityManager.persist(Book.builder().title("Aventuras").author("Fulano").isbn("123").build());
+		entityManager.persist(Book.builder().title("Aventuras 2").author("Ciclano").isbn("456").build());
+		entityManager.persist(Book.builder().title("Outro").author("Fulano").isbn("789").build());
+		
+		//execução
+		Page<Book> page = repository.search("Aventuras", null, null, PageRequest.of(0, 1));
+		Page<Book> byAuthor = repository.search("Aventuras", "Fulano", null, PageRequest.of(0, 10));
+		
+		//verificação
+		assertThat(page.getTotalElements()).isEqualTo(2);
+		assertThat(page.getContent()).hasSize(1);
+		assertThat(byAuthor.getContent()).extracting(Book::getIsbn).containsExactly("123");
 	}
 	
 	@Test
-	@DisplayName("Deve obter um livro por ID")
-	public void findByIdTest() {
+	@DisplayName("Deve buscar %, _ e \\ do filtro literalmente, e não como curingas")
+	public void searchEscapesWildcardsTest() {
 		//cenário
+		entityManager.persist(Book.builder().title("100% Aventuras").author("Fulano_1").isbn("123").build());
+		entityManager.persist(Book.builder().title("1000 Aventuras").author("FulanoX1").isbn("456").build());
+		entityManager.persist(Book.builder().title("C:\\Aventuras").author("Ciclano").isbn("789").build());
 		
-		Book book = Book.builder().title("Aventuras").author("Fulano").isbn("1234").build();
+		//execução
+		Page<Book> byTitle = repository.search("100%", null, null, PageRequest.of(0, 10));
+		Page<Book> byAuthor = repository.search(null, "Fulano_", null, PageRequest.of(0, 10));
+		Page<Book> byBackslash = repository.search("C:\\", null, null, PageRequest.of(0, 10));
 		
-		entityManager.persist(book);
+		//verificação
+		assertThat(byTitle.getContent()).extracting(Book::getIsbn).containsExactly("123");
+		assertThat(byAuthor.getContent()).extracting(Book::getIsbn).containsExactly("123");
+		assertThat(byBackslash.getContent()).extracting(Book::getIsbn).containsExactly("789");
+	}
+	
+	@Test
+	@DisplayName("Deve filtrar apenas pelos campos informados")
+	public void searchWithPartialFiltersTest() {
+		//cenário
+		entityManager.persist(Book.builder().title("Aventuras").author("Fulano").isbn("123").build());
+		entityManager.persist(Book.builder().title("Outro").author("Fulano de Tal").isbn("456").build());
+		entityManager.persist(Book.builder().title("Mais um").author("Ciclano").isbn("789").build());
 		
 		//execução
-		Optional<Book> foundBook = repository.findById(book.getId());
+		Page<Book> byAuthor = repository.search(null, "Fulano", null, PageRequest.of(0, 10, Sort.by("isbn")));
+		Page<Book> byIsbn = repository.search(null, null, "789", PageRequest.of(0, 10));
+		Page<Book> all = repository.search(null, null, null, PageRequest.of(0, 2));
 		
 		//verificação
-		assertThat(foundBook.isPresent()).isTrue();
+		assertThat(byAuthor.getContent()).extracting(Book::getIsbn).containsExactly("123", "456");
+		assertThat(byIsbn.getContent()).extracting(Book::getTitle).containsExactly("Mais um");
+		assertThat(all.getTotalElements()).isEqualTo(3);
+		assertThat(all.getContent()).hasSize(2);
 	}
 	
 	@Test
-	@DisplayName("Deve salvar um livro")
-	public void saveBookTest() {
+	@DisplayName("Deve buscar a próxima página de livros a partir do último id")
+	public void searchAfterTest() {
+		//cenário
+		Book first = Book.builder().title("Aventuras").author("Fulano").isbn("123").build();
+		Book second = Book.builder().title("Aventuras 2").author("Fulano").isbn("456").build();
+		Book third = Book.builder().title("Aventuras 3").author("Fulano").isbn("789").build();
+		entityManager.persist(first);
+		entityManager.persist(second);
+		entityManager.persist(third);
+		
+		//execução
+		Slice<Book> slice = repository.searchAfter(first.getId(), null, "Fulano", null, PageRequest.of(0, 1, Sort.by("id")));
+		
+		//verificação
+		assertThat(slice.getContent()).extracting(Book::getId).containsExactly(second.getId());
+		assertThat(slice.hasNext()).isTrue();
 		
+		//execução
+		Slice<Book> last = repository.searchAfter(second.getId(), "Aventuras", null, null, PageRequest.of(0, 1, Sort.by("id")));
+		
+		//verificação
+		assertThat(last.getContent()).extracting(Book::getId).containsExactly(third.getId());
+		assertThat(last.hasNext()).isFalse();
+	}
+
+	@Test
+	@DisplayName("Deve percorrer todos os livros ordenados por id")
+	public void streamAllTest() {
 		//cenário
-		Book book = Book.builder().title("Aventuras").author("Fulano").isbn("1234").build();
+		Book first = Book.builder().title("Aventuras").author("Fulano").isbn("123").build();
+		Book second = Book.builder().title("Outro").author("Ciclano").isbn("456").build();
+		entityManager.persist(first);
+		entityManager.persist(second);
 		
 		//execução
-		Book savedBook = repository.save(book);
+		List<Long> ids;
+		try (Stream<Book> books = repository.streamAll()) {
+			ids = books.map(Book::getId).collect(Collectors.toList());
+		}
 		
 		//verificação
-		assertThat(savedBook.getId()).isNotNull();
+		assertThat(ids).containsExactly(first.getId(), second.getId());
+	}
 
+	@Test
+	@DisplayName("Não deve permitir dois livros com o mesmo isbn")
+	public void uniqueIsbnTest() {
+		//cenário
+		entityManager.persist(Book.builder().title("Aventuras").author("Fulano").isbn("123").build());
+		
+		//execução e verificação
+		Assertions.assertThrows(DataIntegrityViolationException.class, () ->
+				repository.saveAndFlush(Book.builder().title("Outro").author("Ciclano").isbn("123").build()));
 	}
 	
 	@Test
-	@DisplayName("Deve deletar um livro")
-	public void deleteBookTest() {
-		
+	@DisplayName("Deve incrementar a versão e a data de alteração ao atualizar e recusar uma versão desatualizada")
+	public void versionTest() {
 		//cenário
-		Book book = Book.builder().title("Aventuras").author("Fulano").isbn("1234").build();
+		Book book = entityManager.persistFlushFind(Book.builder().title("Aventuras").author("Fulano").isbn("123").build());
+		Long id = book.getId();
+		entityManager.detach(book);
 		
-		entityManager.persist(book);
+		Book stale = Book.builder().id(id).title("Outro").author("Fulano").isbn("123").version(book.getVersion()).build();
 		
-		Book foundBook = entityManager.find(Book.class, book.getId());
+		//execução
+		book.setTitle("Novas Aventuras");
+		Book updated = repository.saveAndFlush(book);
+		
+		//verificação
+		assertThat(updated.getVersion()).isEqualTo(book.getVersion() + 1);
+		assertThat(updated.getLastModified()).isAfterOrEqualTo(book.getLastModified());
+		Assertions.assertThrows(OptimisticLockingFailureException.class, () -> repository.saveAndFlush(stale));
+	}
+		
+	@Test
+	@DisplayName("Deve obter os livros alterados depois do cursor, em ordem de alteração e id")
+	public void findModifiedSinceTest() {
+		//cenário
+		Book first = entityManager.persist(Book.builder().title("Aventuras").author("Fulano").isbn("123").build());
+		Book second = entityManager.persist(Book.builder().title("Outro").author("Fulano").isbn("456").build());
+		Book third = entityManager.persist(Book.builder().title("Mais um").author("Fulano").isbn("789").build());
+		entityManager.flush();
+		Instant until = Instant.now();
 		
 		//execução
-		repository.delete(foundBook);
+		List<Book> firstPage = repository.findModifiedSince(Instant.EPOCH, 0L, until, PageRequest.of(0, 2));
+		Book last = firstPage.get(1);
+		List<Book> secondPage = repository.findModifiedSince(last.getLastModified(), last.getId(), until, PageRequest.of(0, 2));
 		
 		//verificação
-		Book deletedBook = entityManager.find(Book.class, book.getId());
-
-		assertThat(deletedBook).isNull();
+		assertThat(firstPage).containsExactly(first, second);
+		assertThat(secondPage).containsExactly(third);
+		assertThat(repository.findModifiedSince(Instant.EPOCH, 0L, first.getLastModified().minusNanos(1000), PageRequest.of(0, 2))).isEmpty();
+	}
+	
+	@Test
+	@DisplayName("Deve obter as remoções depois do cursor, desempatando pelo id do livro")
+	public void findDeletedSinceTest() {
+		//cenário
+		Instant deletedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+		entityManager.persist(BookTombstone.builder().bookId(2L).isbn("456").deletedAt(deletedAt).build());
+		entityManager.persist(BookTombstone.builder().bookId(1L).isbn("123").deletedAt(deletedAt).build());
+		entityManager.persist(BookTombstone.builder().bookId(3L).isbn("789").deletedAt(deletedAt.minusSeconds(1)).build());
+		entityManager.flush();
 		
+		//execução
+		List<BookTombstone> tombstones = tombstoneRepository.findDeletedSince(deletedAt.minusSeconds(1), 3L, deletedAt, PageRequest.of(0, 10));
+		
+		//verificação
+		assertThat(tombstones).extracting(BookTombstone::getBookId).containsExactly(1L, 2L);
+		assertThat(tombstoneRepository.findDeletedSince(deletedAt, 1L, deletedAt, PageRequest.of(0, 10)))
+			.extracting(BookTombstone::getBookId).containsExactly(2L);
 	}
 	
+	@Test
+	@DisplayName("Deve atualizar título e autor em um único comando, conferindo a versão quando informada")
+	public void updateContentTest() {
+		//cenário
+		Book book = entityManager.persistFlushFind(Book.builder().title("Aventuras").author("Fulano").isbn("123").build());
+		Long version = book.getVersion();
+		Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+		
+		//execução
+		int stale = repository.updateContent(book.getId(), "Outro", "Ciclano", now, false, Arrays.asList(version + 5));
+		int updated = repository.patchContent(book.getId(), "Novas Aventuras", null, now, false, Arrays.asList(version + 5, version));
+		int missing = repository.updateContent(99L, "Outro", "Ciclano", now, true, Arrays.asList());
+		
+		//verificação
+		assertThat(stale).isZero();
+		assertThat(updated).isEqualTo(1);
+		assertThat(missing).isZero();
+		Book found = repository.findById(book.getId()).get();
+		assertThat(found.getTitle()).isEqualTo("Novas Aventuras");
+		assertThat(found.getAuthor()).isEqualTo("Fulano");
+		assertThat(found.getVersion()).isEqualTo(version + 1);
+		assertThat(found.getLastModified()).isEqualTo(now);
+	}
 	
+	@Test
+	@DisplayName("Deve gravar a remoção copiando o isbn do livro em um único insert e então remover o livro em um único comando")
+	public void deleteBookByIdTest() {
+		//cenário
+		Book book = entityManager.persistFlushFind(Book.builder().title("Aventuras").author("Fulano").isbn("123").build());
+		Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+		
+		//execução
+		int tombstones = tombstoneRepository.insertFromBook(book.getId(), now);
+		int deleted = repository.deleteBookById(book.getId());
+		
+		//verificação
+		assertThat(tombstones).isEqualTo(1);
+		assertThat(deleted).isEqualTo(1);
+		assertThat(repository.findById(book.getId())).isEmpty();
+		assertThat(tombstoneRepository.findById(book.getId()).get().getIsbn()).isEqualTo("123");
+		assertThat(tombstoneRepository.findById(book.getId()).get().getDeletedAt()).isEqualTo(now);
+		assertThat(tombstoneRepository.insertFromBook(book.getId(), now)).isZero();
+		assertThat(repository.deleteBookById(book.getId())).isZero();
+	}
 	
 }
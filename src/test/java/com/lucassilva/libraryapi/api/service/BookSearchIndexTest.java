@@ -0,0 +1,221 @@
+package com.lucassilva.libraryapi.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lucassilva.libraryapi.api.repository.BookRepository;
+import com.lucassilva.libraryapi.api.service.impl.BookSearchIndex;
+import com.lucassilva.libraryapi.exception.BusinessException;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookSearchIndexTest {
+
+	@Autowired
+	BookService bookService;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	@Test
+	@DisplayName("Deve buscar por palavras do título e do autor ordenando por relevância")
+	public void searchRankingTest() {
+
+		//cenário
+		Book exact = bookService.save(createBook("Memórias Póstumas de Brás Cubas", "Machado de Assis", "s-101"));
+		Book prefix = bookService.save(createBook("Os Machados da Floresta", "Fulano", "s-102"));
+		bookService.save(createBook("O Cortiço", "Aluísio Azevedo", "s-103"));
+
+		//execução
+		Page<Book> result = bookService.search("machado", PageRequest.of(0, 10));
+
+		//verificações
+		assertThat(result.getContent()).extracting(Book::getId).containsExactly(exact.getId(), prefix.getId());
+		assertThat(result.getContent().get(0).getIsbn()).isEqualTo("s-101");
+	}
+
+	@Test
+	@DisplayName("Deve tolerar prefixos, erros de digitação, acentos e stopwords na busca")
+	public void searchToleranceTest() {
+
+		//cenário
+		Book book = bookService.save(createBook("Grande Sertão: Veredas", "João Guimarães Rosa", "s-201"));
+
+		//execução / verificações
+		assertThat(bookService.search("sertao", PageRequest.of(0, 10))).extracting(Book::getId).containsExactly(book.getId());
+		assertThat(bookService.search("guimar", PageRequest.of(0, 10))).extracting(Book::getId).containsExactly(book.getId());
+		assertThat(bookService.search("veredsa guimaraes", PageRequest.of(0, 10))).extracting(Book::getId).containsExactly(book.getId());
+		assertThat(bookService.search("grande sertão de rosa", PageRequest.of(0, 10))).extracting(Book::getId).containsExactly(book.getId());
+		assertThat(bookService.search("grande drummond", PageRequest.of(0, 10))).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve refletir no índice as atualizações e remoções confirmadas")
+	public void searchAfterUpdateAndDeleteTest() {
+
+		//cenário
+		Book book = bookService.save(createBook("Vidas Secas", "Graciliano Ramos", "s-301"));
+
+		//execução
+		book.setTitle("São Bernardo");
+		book = bookService.update(book);
+
+		//verificações
+		assertThat(bookService.search("secas", PageRequest.of(0, 10))).isEmpty();
+		assertThat(bookService.search("bernardo", PageRequest.of(0, 10))).extracting(Book::getId).containsExactly(book.getId());
+
+		//execução
+		bookService.delete(book);
+
+		//verificações
+		assertThat(bookService.search("bernardo", PageRequest.of(0, 10))).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve refletir no índice as alterações e remoções feitas sem carregar o livro")
+	public void searchAfterPatchAndDeleteByIdTest() {
+
+		//cenário
+		Book book = bookService.save(createBook("Senhora", "José de Alencar", "s-501"));
+
+		//execução
+		Book patched = bookService.patch(book.getId(), Book.builder().title("Lucíola").build(), Arrays.asList(book.getVersion())).get();
+
+		//verificações
+		assertThat(patched.getAuthor()).isEqualTo("José de Alencar");
+		assertThat(patched.getVersion()).isEqualTo(book.getVersion() + 1);
+		assertThat(bookService.search("senhora", PageRequest.of(0, 10))).isEmpty();
+		assertThat(bookService.search("luciola alencar", PageRequest.of(0, 10))).extracting(Book::getId).containsExactly(book.getId());
+
+		//execução
+		boolean deleted = bookService.deleteById(book.getId());
+
+		//verificações
+		assertThat(deleted).isTrue();
+		assertThat(bookService.deleteById(book.getId())).isFalse();
+		assertThat(bookService.getById(book.getId())).isEmpty();
+		assertThat(bookService.search("luciola", PageRequest.of(0, 10))).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Não deve indexar livros de uma transação desfeita")
+	public void rollbackIsNotIndexedTest() {
+
+		//execução
+		transactionTemplate.executeWithoutResult( status -> {
+			bookRepository.save(createBook("Iracema", "José de Alencar", "s-401"));
+			bookRepository.flush();
+			status.setRollbackOnly();
+		});
+
+		//verificações
+		assertThat(bookService.search("iracema", PageRequest.of(0, 10))).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve aplicar depois da carga inicial as alterações recebidas durante ela")
+	public void changesDuringWarmUpTest() throws IOException {
+
+		//cenário
+		BookRepository repository = Mockito.mock(BookRepository.class);
+		BookSearchIndex index = new BookSearchIndex(repository, "");
+		ReflectionTestUtils.setField(index, "entityManager", Mockito.mock(EntityManager.class));
+		Book removed = createBook("Vidas Secas", "Graciliano Ramos", "s-501");
+		removed.setId(1L);
+		Book renamed = createBook("Memórias Póstumas", "Machado de Assis", "s-502");
+		renamed.setId(2L);
+		Book current = createBook("Dom Casmurro", "Machado de Assis", "s-502");
+		current.setId(2L);
+		// a remoção e a alteração são confirmadas depois que a carga leu a base
+		Mockito.when(repository.streamAll()).thenReturn(Stream.of(removed, renamed).peek( book -> {
+			if(book == removed) {
+				index.apply(Collections.singletonList(current), Collections.singletonList(removed.getId()));
+			}
+		}));
+
+		try {
+			//execução
+			index.warmUp();
+
+			//verificações
+			assertThat(index.search("secas", PageRequest.of(0, 10))).isEmpty();
+			assertThat(index.search("postumas", PageRequest.of(0, 10))).isEmpty();
+			assertThat(index.search("casmurro", PageRequest.of(0, 10))).extracting(Book::getId).containsExactly(2L);
+		} finally {
+			index.close();
+		}
+	}
+
+	@Test
+	@DisplayName("Deve paginar a busca por cursor e recusar páginas além do limite da paginação por número")
+	public void searchAfterTest() throws IOException {
+
+		//cenário
+		BookRepository repository = Mockito.mock(BookRepository.class);
+		BookSearchIndex index = new BookSearchIndex(repository, "");
+		ReflectionTestUtils.setField(index, "entityManager", Mockito.mock(EntityManager.class));
+		List<Book> books = new ArrayList<>();
+		for (long id = 1; id <= 5; id++) {
+			Book book = createBook("Contos " + id, "Fulano", "s-60" + id);
+			book.setId(id);
+			books.add(book);
+		}
+		Mockito.when(repository.streamAll()).thenReturn(books.stream());
+
+		try {
+			index.warmUp();
+
+			//execução
+			List<Long> found = new ArrayList<>();
+			BookSearchCursor after = null;
+			BookSearchResult result;
+			do {
+				result = index.searchAfter("contos", after, 2);
+				result.getBooks().forEach( book -> found.add(book.getId()) );
+				after = BookSearchCursor.parse(result.getNext().toToken());
+			} while (result.isHasMore());
+
+			//verificações
+			assertThat(found).containsExactly(1L, 2L, 3L, 4L, 5L);
+			assertThat(index.search("contos", PageRequest.of(4999, 2))).extracting(Book::getId).isEmpty();
+			assertThatThrownBy( () -> index.search("contos", PageRequest.of(5000, 2)) ).isInstanceOf(BusinessException.class);
+			assertThatThrownBy( () -> index.search("contos", PageRequest.of(Integer.MAX_VALUE, 2000)) ).isInstanceOf(BusinessException.class);
+			assertThatThrownBy( () -> index.searchAfter("contos", null, BookSearchIndex.MAX_RESULT_WINDOW + 1) ).isInstanceOf(BusinessException.class);
+			assertThatThrownBy( () -> BookSearchCursor.parse("invalido") ).isInstanceOf(BusinessException.class);
+		} finally {
+			index.close();
+		}
+	}
+
+	private Book createBook(String title, String author, String isbn) {
+		return Book.builder().title(title).author(author).isbn(isbn).build();
+	}
+
+}
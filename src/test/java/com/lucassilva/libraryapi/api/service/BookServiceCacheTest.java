@@ -0,0 +1,100 @@
+package com.lucassilva.libraryapi.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.lucassilva.libraryapi.api.repository.BookRepository;
+import com.lucassilva.libraryapi.api.service.impl.BookServiceImpl;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookServiceCacheTest {
+
+	@Autowired
+	BookService bookService;
+	
+	@Autowired
+	CacheManager cacheManager;
+	
+	@MockBean
+	BookRepository bookRepository;
+	
+	@BeforeEach
+	public void setup() {
+		cacheManager.getCache(BookServiceImpl.BOOKS_CACHE).clear();
+	}
+	
+	@Test
+	@DisplayName("Deve obter um livro do cache nas consultas seguintes por ID")
+	public void getByIdFromCacheTest() {
+		
+		//cenário
+		Long id = 1L;
+		Mockito.when(bookRepository.findById(id)).thenReturn(Optional.of(createValidBook(id)));
+		
+		//execução
+		bookService.getById(id);
+		Optional<Book> foundBook = bookService.getById(id);
+		
+		//verificações
+		assertThat(foundBook.isPresent()).isTrue();
+		Mockito.verify(bookRepository, Mockito.times(1)).findById(id);
+	}
+	
+	@Test
+	@DisplayName("Não deve guardar no cache um livro inexistente")
+	public void bookNotFoundIsNotCachedTest() {
+		
+		//cenário
+		Long id = 1L;
+		Mockito.when(bookRepository.findById(id)).thenReturn(Optional.empty());
+		
+		//execução
+		bookService.getById(id);
+		bookService.getById(id);
+		
+		//verificações
+		Mockito.verify(bookRepository, Mockito.times(2)).findById(id);
+	}
+	
+	@Test
+	@DisplayName("Deve remover o livro do cache ao atualizar e ao deletar")
+	public void evictOnUpdateAndDeleteTest() {
+		
+		//cenário
+		Long id = 1L;
+		Book book = createValidBook(id);
+		Mockito.when(bookRepository.findById(id)).thenReturn(Optional.of(book));
+		Mockito.when(bookRepository.save(book)).thenReturn(book);
+		
+		//execução
+		bookService.getById(id);
+		bookService.update(book);
+		bookService.getById(id);
+		bookService.delete(book);
+		bookService.getById(id);
+		
+		//verificações
+		Mockito.verify(bookRepository, Mockito.times(3)).findById(id);
+	}
+	
+	private Book createValidBook(Long id) {
+		return Book.builder().id(id).isbn("123").title("Meu Livro").author("Lucas").build();
+	}
+	
+}
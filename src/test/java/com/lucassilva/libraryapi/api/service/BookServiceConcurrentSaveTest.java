@@ -0,0 +1,125 @@
+package com.lucassilva.libraryapi.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.lucassilva.libraryapi.api.repository.BookTombstoneRepository;
+import com.lucassilva.libraryapi.exception.BusinessException;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookServiceConcurrentSaveTest {
+
+	static final int THREADS = 16;
+	static final int ISBNS = 8;
+
+	@Autowired
+	BookService bookService;
+
+	@Autowired
+	BookTombstoneRepository tombstoneRepository;
+
+	@Test
+	@DisplayName("Deve criar cada isbn uma única vez e recusar as demais criações simultâneas com erro de negócio")
+	public void concurrentSameIsbnTest() throws Exception {
+
+		//cenário
+		Map<String, AtomicInteger> created = new ConcurrentHashMap<>();
+		AtomicInteger rejected = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+		//execução
+		List<Future<?>> tasks = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			tasks.add(executor.submit( () -> {
+				start.await();
+				for (int i = 0; i < ISBNS; i++) {
+					String isbn = "c-" + i;
+					try {
+						bookService.save(Book.builder().title("Concorrente").author("Fulano").isbn(isbn).build());
+						created.computeIfAbsent(isbn, key -> new AtomicInteger()).incrementAndGet();
+					} catch (BusinessException e) {
+						assertThat(e.getMessage()).isEqualTo("Isbn já cadastrado.");
+						rejected.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> task : tasks) {
+			task.get();
+		}
+		executor.shutdown();
+
+		//verificações
+		assertThat(created).hasSize(ISBNS);
+		assertThat(created.values()).allSatisfy( count -> assertThat(count.get()).isEqualTo(1) );
+		assertThat(rejected.get()).isEqualTo(THREADS * ISBNS - ISBNS);
+		for (int i = 0; i < ISBNS; i++) {
+			Book filter = Book.builder().isbn("c-" + i).build();
+			assertThat(bookService.find(filter, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	@DisplayName("Deve remover cada livro uma única vez e gravar uma única remoção nas remoções simultâneas")
+	public void concurrentDeleteTest() throws Exception {
+
+		//cenário
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < ISBNS; i++) {
+			ids.add(bookService.save(Book.builder().title("Concorrente").author("Fulano").isbn("d-" + i).build()).getId());
+		}
+		Map<Long, AtomicInteger> deleted = new ConcurrentHashMap<>();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+		//execução
+		List<Future<?>> tasks = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			tasks.add(executor.submit( () -> {
+				start.await();
+				for (Long id : ids) {
+					if(bookService.deleteById(id)) {
+						deleted.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> task : tasks) {
+			task.get();
+		}
+		executor.shutdown();
+
+		//verificações
+		assertThat(deleted).hasSize(ISBNS);
+		assertThat(deleted.values()).allSatisfy( count -> assertThat(count.get()).isEqualTo(1) );
+		assertThat(tombstoneRepository.findAllById(ids)).hasSize(ISBNS)
+			.allSatisfy( tombstone -> assertThat(tombstone.getIsbn()).startsWith("d-") );
+	}
+
+}
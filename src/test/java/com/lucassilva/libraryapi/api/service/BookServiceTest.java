@@ -2,22 +2,61 @@ package com.lucassilva.libraryapi.api.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import com.lucassilva.libraryapi.api.repository.BookEventRepository;
 import com.lucassilva.libraryapi.api.repository.BookRepository;
+import com.lucassilva.libraryapi.api.repository.BookTombstoneRepository;
+import com.lucassilva.libraryapi.api.service.impl.BookSearchIndex;
+import com.lucassilva.libraryapi.api.service.impl.BookSearchIndexListener;
 import com.lucassilva.libraryapi.api.service.impl.BookServiceImpl;
+import com.lucassilva.libraryapi.api.service.impl.IsbnBloomFilter;
+import com.lucassilva.libraryapi.api.service.impl.IsbnIndex;
 import com.lucassilva.libraryapi.exception.BusinessException;
 import com.lucassilva.libraryapi.model.entity.Book;
+import com.lucassilva.libraryapi.model.entity.BookEvent;
+import com.lucassilva.libraryapi.model.entity.BookEvent.Type;
+import com.lucassilva.libraryapi.model.entity.BookTombstone;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -25,12 +64,38 @@ public class BookServiceTest {
 
 	BookService bookService;
 	
+	IsbnBloomFilter isbnFilter;
+	
+	IsbnIndex isbnIndex;
+	
 	@MockBean
 	BookRepository bookRepository;
 	
+	@MockBean
+	BookSearchIndex searchIndex;
+	
+	@MockBean
+	BookEventRepository eventRepository;
+	
+	@MockBean
+	BookTombstoneRepository tombstoneRepository;
+	
+	@MockBean
+	BookSearchIndexListener searchIndexListener;
+	
+	@MockBean
+	PlatformTransactionManager transactionManager;
+	
 	@BeforeEach
 	public void setup() {
-		this.bookService = new BookServiceImpl(bookRepository);
+		this.isbnFilter = new IsbnBloomFilter(bookRepository, 1000, 0.01);
+		this.isbnIndex = new IsbnIndex(bookRepository, 16);
+		this.bookService = new BookServiceImpl(bookRepository, isbnFilter, searchIndex, eventRepository, tombstoneRepository, searchIndexListener, isbnIndex,
+				transactionManager);
+		EntityManager entityManager = Mockito.mock(EntityManager.class, Mockito.RETURNS_DEEP_STUBS);
+		Mockito.when(entityManager.getEntityManagerFactory().getCache().unwrap(org.hibernate.Cache.class))
+			.thenReturn(Mockito.mock(org.hibernate.Cache.class));
+		ReflectionTestUtils.setField(bookService, "entityManager", entityManager);
 	}
 	
 	@Test
@@ -39,9 +104,7 @@ public class BookServiceTest {
 		
 		Book book = createValidBook();
 		
-		Mockito.when(bookRepository.existsByIsbn(Mockito.anyString())).thenReturn(Boolean.FALSE);
-		
-		Mockito.when(bookRepository.save(book)).thenReturn(
+		Mockito.when(bookRepository.saveAndFlush(book)).thenReturn(
 					Book.builder()
 						.id(11L)
 						.isbn("123")
@@ -64,7 +127,7 @@ public class BookServiceTest {
 		
 		Book book = createValidBook();
 		
-		Mockito.when(bookRepository.existsByIsbn(Mockito.anyString())).thenReturn(Boolean.TRUE);
+		Mockito.when(bookRepository.saveAndFlush(book)).thenThrow(constraintViolation("PUBLIC.UK_BOOK_ISBN_INDEX_1 ON PUBLIC.BOOK(ISBN)"));
 		
 		Throwable exception = Assertions.catchThrowable( () -> bookService.save(book));
 		
@@ -72,10 +135,47 @@ public class BookServiceTest {
 					.isInstanceOf(BusinessException.class)
 					.hasMessage("Isbn já cadastrado.");
 		
-		Mockito.verify(bookRepository, Mockito.never()).save(book);
+		Mockito.verify(eventRepository, Mockito.never()).save(Mockito.any(BookEvent.class));
 		
 	}
 	
+	@Test
+	@DisplayName("Deve salvar um livro com um único comando, sem consultar o isbn antes")
+	public void saveBookSkippingIsbnQueryTest() {
+		
+		//cenário
+		Book book = createValidBook();
+		
+		Mockito.when(bookRepository.streamAllIsbns()).thenReturn(Stream.of("123"));
+		isbnFilter.warmUp();
+		
+		Mockito.when(bookRepository.saveAndFlush(book)).thenReturn(book);
+		
+		//execução
+		bookService.save(book);
+		
+		//verificações
+		Mockito.verify(bookRepository, Mockito.never()).findExistingIsbns(Mockito.anyCollection());
+		Mockito.verify(bookRepository, Mockito.times(1)).saveAndFlush(book);
+		assertThat(isbnFilter.mightContain("123")).isTrue();
+	}
+	
+	@Test
+	@DisplayName("Não deve converter em erro de negócio a violação de outra restrição")
+	public void saveBookOtherConstraintViolationTest() {
+		
+		//cenário
+		Book book = createValidBook();
+		
+		Mockito.when(bookRepository.saveAndFlush(book)).thenThrow(constraintViolation("PK_BOOK"));
+		
+		//execução
+		Throwable exception = Assertions.catchThrowable( () -> bookService.save(book));
+		
+		//verificações
+		assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+	}
+	
 	@Test
 	@DisplayName("Deve obter um livro por ID")
 	public void getByIdTest() {
@@ -128,6 +228,10 @@ public class BookServiceTest {
 		
 		//verificações
 		Mockito.verify(bookRepository, Mockito.times(1)).delete(book);
+		ArgumentCaptor<BookTombstone> tombstone = ArgumentCaptor.forClass(BookTombstone.class);
+		Mockito.verify(tombstoneRepository, Mockito.times(1)).save(tombstone.capture());
+		assertThat(tombstone.getValue().getBookId()).isEqualTo(1L);
+		assertThat(tombstone.getValue().getDeletedAt()).isNotNull();
 	}
 	
 	@Test
@@ -183,8 +287,378 @@ public class BookServiceTest {
 	
 	}
 	
+	@Test
+	@DisplayName("Deve deletar um livro pelo id sem carregá-lo, removendo o livro só se a remoção foi gravada")
+	public void deleteByIdTest() {
+		
+		//cenário
+		Mockito.when(tombstoneRepository.insertFromBook(Mockito.eq(1L), Mockito.any(Instant.class))).thenReturn(1);
+		Mockito.when(bookRepository.deleteBookById(1L)).thenReturn(1);
+		
+		//execução
+		boolean deleted = bookService.deleteById(1L);
+		boolean missing = bookService.deleteById(2L);
+		
+		//verificações
+		assertThat(deleted).isTrue();
+		assertThat(missing).isFalse();
+		Mockito.verify(bookRepository, Mockito.never()).findById(Mockito.anyLong());
+		Mockito.verify(bookRepository, Mockito.times(1)).deleteBookById(1L);
+		Mockito.verify(bookRepository, Mockito.never()).deleteBookById(2L);
+		ArgumentCaptor<BookEvent> event = ArgumentCaptor.forClass(BookEvent.class);
+		Mockito.verify(eventRepository, Mockito.times(1)).save(event.capture());
+		assertThat(event.getValue().getType()).isEqualTo(Type.DELETED);
+		assertThat(event.getValue().getBookId()).isEqualTo(1L);
+		Mockito.verify(searchIndexListener, Mockito.times(1)).removed(Book.builder().id(1L).build());
+	}
+	
+	@Test
+	@DisplayName("Deve alterar parcialmente um livro com um único update e distinguir livro inexistente de versão desatualizada")
+	public void patchBookTest() {
+		
+		//cenário
+		Book patched = createValidBook();
+		patched.setId(1L);
+		Mockito.when(bookRepository.patchContent(Mockito.eq(1L), Mockito.eq("Novo"), Mockito.isNull(), Mockito.any(Instant.class),
+				Mockito.eq(false), Mockito.eq(Arrays.asList(3L)))).thenReturn(1);
+		Mockito.when(bookRepository.findCurrentById(1L)).thenReturn(Optional.of(patched));
+		Mockito.when(bookRepository.existsById(2L)).thenReturn(true);
+		Book changes = Book.builder().title("Novo").build();
+		
+		//execução
+		Optional<Book> book = bookService.patch(1L, changes, Arrays.asList(3L));
+		Optional<Book> missing = bookService.patch(3L, changes, Arrays.asList(3L));
+		
+		//verificações
+		assertThat(book).contains(patched);
+		assertThat(missing).isEmpty();
+		Assertions.assertThatThrownBy(() -> bookService.patch(2L, changes, Arrays.asList(3L)))
+			.isInstanceOf(OptimisticLockingFailureException.class);
+		ArgumentCaptor<BookEvent> event = ArgumentCaptor.forClass(BookEvent.class);
+		Mockito.verify(eventRepository, Mockito.times(1)).save(event.capture());
+		assertThat(event.getValue().getType()).isEqualTo(Type.UPDATED);
+		Mockito.verify(searchIndexListener, Mockito.times(1)).saved(patched);
+	}
+	
+	@Test
+	@DisplayName("Deve lançar erro de negócio ao substituir título ou autor por vazio")
+	public void updateBlankContentTest() {
+		
+		//execução / verificações
+		Assertions.assertThatThrownBy(() -> bookService.update(1L, Book.builder().title("Aventuras").build(), null))
+			.isInstanceOf(BusinessException.class)
+			.hasMessage("Título e autor não podem ser vazios.");
+		Assertions.assertThatThrownBy(() -> bookService.update(1L, Book.builder().title(" ").author("Fulano").build(), null))
+			.isInstanceOf(BusinessException.class)
+			.hasMessage("Título e autor não podem ser vazios.");
+		Mockito.verify(bookRepository, Mockito.never()).updateContent(Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.any(),
+				Mockito.anyBoolean(), Mockito.any());
+	}
+	
+	@Test
+	@DisplayName("Deve lançar erro de negócio ao alterar parcialmente o isbn, nenhum campo ou campos vazios")
+	public void patchInvalidBookTest() {
+		
+		//execução / verificações
+		Assertions.assertThatThrownBy(() -> bookService.patch(1L, Book.builder().isbn("999").build(), null))
+			.isInstanceOf(BusinessException.class)
+			.hasMessage("O isbn do livro não pode ser alterado.");
+		Assertions.assertThatThrownBy(() -> bookService.patch(1L, new Book(), null))
+			.isInstanceOf(BusinessException.class)
+			.hasMessage("Informe ao menos um campo para alterar.");
+		Assertions.assertThatThrownBy(() -> bookService.patch(1L, Book.builder().title(" ").build(), null))
+			.isInstanceOf(BusinessException.class)
+			.hasMessage("Título e autor não podem ser vazios.");
+		Mockito.verify(bookRepository, Mockito.never()).patchContent(Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.any(),
+				Mockito.anyBoolean(), Mockito.any());
+	}
+	
+	@Test
+	@DisplayName("Deve salvar um lote de livros recusando isbns já cadastrados")
+	public void saveAllBooksTest() {
+		
+		//cenário
+		Book newBook = createValidBook();
+		Book existingIsbn = Book.builder().isbn("456").title("Outro").author("Fulano").build();
+		Book repeatedIsbn = Book.builder().isbn("123").title("Repetido").author("Fulano").build();
+		
+		Mockito.when(bookRepository.findExistingIsbns(Mockito.anyCollection())).thenReturn(Collections.singleton("456"));
+		Mockito.when(bookRepository.saveAll(Mockito.anyList())).thenAnswer( invocation -> {
+			List<Book> books = invocation.getArgument(0);
+			books.forEach( book -> book.setId(1L) );
+			return books;
+		});
+		
+		//execução
+		List<Book> result = bookService.saveAll(Arrays.asList(newBook, existingIsbn, repeatedIsbn));
+		
+		//verificações
+		assertThat(result).hasSize(3);
+		assertThat(result.get(0).getId()).isEqualTo(1L);
+		assertThat(result.get(1)).isNull();
+		assertThat(result.get(2)).isNull();
+		Mockito.verify(bookRepository, Mockito.times(1)).saveAll(Collections.singletonList(newBook));
+	}
+	
+	@Test
+	@DisplayName("Deve agrupar em poucas consultas as leituras simultâneas do mesmo livro")
+	public void getByIdThunderingHerdTest() throws Exception {
+		
+		//cenário
+		int readers = 64;
+		AtomicInteger queries = new AtomicInteger();
+		Book book = createValidBook();
+		book.setId(1L);
+		Mockito.when(bookRepository.findById(1L)).thenAnswer( invocation -> {
+			queries.incrementAndGet();
+			Thread.sleep(200);
+			return Optional.of(book);
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(readers);
+		CountDownLatch start = new CountDownLatch(1);
+		
+		//execução
+		List<Future<Optional<Book>>> results = IntStream.range(0, readers)
+				.mapToObj( i -> executor.submit( () -> {
+					start.await();
+					return bookService.getById(1L);
+				}))
+				.collect(Collectors.toList());
+		start.countDown();
+		
+		//verificações
+		for (Future<Optional<Book>> result : results) {
+			assertThat(result.get(10, TimeUnit.SECONDS)).get().isEqualTo(book);
+		}
+		assertThat(queries.get()).as("%d consultas para %d leituras", queries.get(), readers).isLessThanOrEqualTo(readers / 16);
+		executor.shutdown();
+	}
+	
+	@Test
+	@DisplayName("Deve entregar a mesma falha às leituras agrupadas e consultar de novo na leitura seguinte")
+	public void getByIdSharedFailureTest() throws Exception {
+		
+		//cenário
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Mockito.when(bookRepository.findById(1L))
+			   .thenAnswer( invocation -> {
+				   loading.countDown();
+				   release.await();
+				   throw new IllegalStateException("banco indisponível");
+			   })
+			   .thenReturn(Optional.empty());
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		
+		//execução
+		Future<Optional<Book>> leader = executor.submit( () -> bookService.getById(1L) );
+		loading.await();
+		Future<Optional<Book>> follower = executor.submit( () -> bookService.getById(1L) );
+		Thread.sleep(100);
+		release.countDown();
+		
+		//verificações
+		Assertions.assertThatThrownBy( () -> leader.get() ).hasRootCauseMessage("banco indisponível");
+		Assertions.assertThatThrownBy( () -> follower.get() ).hasRootCauseMessage("banco indisponível");
+		assertThat(bookService.getById(1L)).isEmpty();
+		Mockito.verify(bookRepository, Mockito.times(2)).findById(1L);
+		executor.shutdown();
+	}
+	
+	@Test
+	@DisplayName("Deve obter vários livros com uma única consulta, na ordem dos ids")
+	public void getAllByIdTest() {
+		
+		//cenário
+		List<Long> ids = Arrays.asList(3L, 2L, 1L);
+		Book first = Book.builder().id(1L).isbn("1").build();
+		Book third = Book.builder().id(3L).isbn("3").build();
+		Mockito.when(bookRepository.findAllById(ids)).thenReturn(Arrays.asList(first, third));
+		
+		//execução
+		List<Book> result = bookService.getAllById(ids);
+		
+		//verificações
+		assertThat(result).containsExactly(third, null, first);
+		Mockito.verify(bookRepository, Mockito.times(1)).findAllById(ids);
+	}
+	
+	@Test
+	@DisplayName("Deve registrar na outbox um evento para cada alteração de livro")
+	public void outboxEventsTest() {
+		
+		//cenário
+		Book book = Book.builder().id(11L).isbn("123").title("Meu Livro").author("Lucas").build();
+		Mockito.when(bookRepository.saveAndFlush(Mockito.any(Book.class))).thenReturn(book);
+		Mockito.when(bookRepository.save(Mockito.any(Book.class))).thenReturn(book);
+		
+		//execução
+		bookService.save(createValidBook());
+		bookService.update(book);
+		bookService.delete(book);
+		
+		//verificações
+		ArgumentCaptor<BookEvent> events = ArgumentCaptor.forClass(BookEvent.class);
+		Mockito.verify(eventRepository, Mockito.times(3)).save(events.capture());
+		assertThat(events.getAllValues()).extracting(BookEvent::getType).containsExactly(Type.CREATED, Type.UPDATED, Type.DELETED);
+		assertThat(events.getAllValues()).extracting(BookEvent::getBookId).containsOnly(11L);
+		assertThat(events.getAllValues()).extracting(BookEvent::getOffset).containsOnlyNulls();
+	}
+	
+	@Test
+	@DisplayName("Deve obter as alterações depois do cursor e avançá-lo até a última entregue")
+	public void findChangesTest() {
+		
+		//cenário
+		Instant modified = Instant.parse("2024-01-01T10:00:00Z");
+		Instant deleted = Instant.parse("2024-01-01T11:00:00Z");
+		BookChangeCursor since = new BookChangeCursor(modified.minusSeconds(60), 7L, Instant.EPOCH, 0L);
+		Book book = Book.builder().id(5L).isbn("123").lastModified(modified).build();
+		BookTombstone tombstone = BookTombstone.builder().bookId(9L).deletedAt(deleted).build();
+		Mockito.when(bookRepository.findModifiedSince(Mockito.eq(since.getBookModified()), Mockito.eq(7L), Mockito.any(Instant.class), Mockito.any(Pageable.class)))
+			   .thenReturn(Collections.singletonList(book));
+		Mockito.when(tombstoneRepository.findDeletedSince(Mockito.eq(Instant.EPOCH), Mockito.eq(0L), Mockito.any(Instant.class), Mockito.any(Pageable.class)))
+			   .thenReturn(Collections.singletonList(tombstone));
+		
+		//execução
+		BookChanges changes = bookService.findChanges(since, 1);
+		
+		//verificações
+		assertThat(changes.getBooks()).containsExactly(book);
+		assertThat(changes.getTombstones()).containsExactly(tombstone);
+		assertThat(changes.getNext()).isEqualTo(new BookChangeCursor(modified, 5L, deleted, 9L));
+		assertThat(changes.isHasMore()).isTrue();
+	}
+	
+	@Test
+	@DisplayName("Deve filtrar livros pelas propriedades")
+	public void findBookTest() {
+		
+		//cenário
+		Book book = createValidBook();
+		book.setIsbn("");
+		
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		
+		List<Book> list = Collections.singletonList(book);
+		Page<Book> page = new PageImpl<Book>(list, pageRequest, 1);
+		Mockito.when(bookRepository.search("Meu Livro", "Lucas", null, pageRequest)).thenReturn(page);
+		
+		//execução
+		Page<Book> result = bookService.find(book, pageRequest);
+		
+		//verificações
+		assertThat(result.getTotalElements()).isEqualTo(1);
+		assertThat(result.getContent()).isEqualTo(list);
+		assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
+		assertThat(result.getPageable().getPageSize()).isEqualTo(10);
+	}
+	
+	@Test
+	@DisplayName("Deve filtrar livros a partir de um id ordenando pela chave")
+	public void findBookAfterIdTest() {
+		
+		//cenário
+		Book filter = new Book();
+		
+		Slice<Book> slice = new SliceImpl<Book>(Collections.singletonList(createValidBook()));
+		Mockito.when(bookRepository.searchAfter(Mockito.eq(100L), Mockito.isNull(), Mockito.isNull(), Mockito.isNull(), Mockito.any(Pageable.class)))
+			   .thenReturn(slice);
+		
+		//execução
+		Slice<Book> result = bookService.findAfter(filter, 100L, PageRequest.of(3, 20));
+		
+		//verificações
+		assertThat(result).isSameAs(slice);
+		Mockito.verify(bookRepository).searchAfter(100L, null, null, null, PageRequest.of(0, 20, Sort.by("id")));
+	}
+	
+	@Test
+	@DisplayName("Deve obter o id do livro pelo isbn em qualquer formatação sem consultar a base")
+	public void findIdByIsbnTest() {
+		
+		//cenário
+		Mockito.when(bookRepository.streamAllIdsAndIsbns()).thenReturn(Stream.of(
+				new Object[] { 1L, "978-0-306-40615-7" },
+				new Object[] { 2L, "123" }));
+		isbnIndex.warmUp();
+		
+		//execução / verificações
+		assertThat(bookService.findIdByIsbn("0306406152")).isEqualTo(OptionalLong.of(1L));
+		assertThat(bookService.findIdByIsbn("978 0 306 40615 7")).isEqualTo(OptionalLong.of(1L));
+		assertThat(bookService.findIdByIsbn("9783161484100")).isEmpty();
+		
+		Mockito.verify(bookRepository).streamAllIdsAndIsbns();
+		Mockito.verifyNoMoreInteractions(bookRepository);
+	}
+	
+	@Test
+	@DisplayName("Deve recusar no lote, pelo índice de isbns e sem consultar a base, os ISBNs válidos já cadastrados")
+	public void saveAllBooksWithIsbnIndexTest() {
+		
+		//cenário
+		Mockito.when(bookRepository.streamAllIdsAndIsbns()).thenReturn(Stream.<Object[]>of(new Object[] { 1L, "978-0-306-40615-7" }));
+		isbnIndex.warmUp();
+		Book existingIsbn = Book.builder().isbn("0-306-40615-2").title("Outro").author("Fulano").build();
+		Book newBook = Book.builder().isbn("978-3-16-148410-0").title("Novo").author("Fulano").build();
+		Mockito.when(bookRepository.saveAll(Mockito.anyList())).thenAnswer( invocation -> invocation.getArgument(0) );
+		
+		//execução
+		List<Book> result = bookService.saveAll(Arrays.asList(existingIsbn, newBook));
+		
+		//verificações
+		assertThat(result).containsExactly(null, newBook);
+		assertThat(newBook.getIsbn()).isEqualTo("9783161484100");
+		Mockito.verify(bookRepository, Mockito.never()).findExistingIsbns(Mockito.anyCollection());
+		Mockito.verify(bookRepository).saveAll(Collections.singletonList(newBook));
+	}
+	
+	@Test
+	@DisplayName("Deve aplicar ao índice de isbns, depois da carga inicial, as alterações recebidas durante ela")
+	public void isbnIndexChangesDuringWarmUpTest() {
+		
+		//cenário
+		Book renamed = Book.builder().id(2L).isbn("978-3-16-148410-0").build();
+		// a remoção e a troca de isbn são confirmadas depois que a carga leu a base
+		Mockito.when(bookRepository.streamAllIdsAndIsbns()).thenReturn(Stream.<Object[]>of(
+				new Object[] { 1L, "978-0-306-40615-7" },
+				new Object[] { 2L, "979-10-90636-07-1" })
+			.peek( row -> {
+				if(row[0].equals(1L)) {
+					isbnIndex.apply(Collections.singletonList(renamed), Collections.singletonList(1L));
+				}
+			}));
+		
+		//execução
+		isbnIndex.warmUp();
+		
+		//verificações
+		assertThat(bookService.findIdByIsbn("978-0-306-40615-7")).isEmpty();
+		assertThat(bookService.findIdByIsbn("979-10-90636-07-1")).isEmpty();
+		assertThat(bookService.findIdByIsbn("978-3-16-148410-0")).isEqualTo(OptionalLong.of(2L));
+	}
+	
+	@Test
+	@DisplayName("Deve consultar a base pelo isbn antes da carga do índice e recusar isbns inválidos")
+	public void findIdByIsbnBeforeWarmUpTest() {
+		
+		//cenário
+		Mockito.when(bookRepository.findIdsByIsbnIn(Arrays.asList("0-306-40615-2", "9780306406157"))).thenReturn(Arrays.asList(1L));
+		
+		//execução / verificações
+		assertThat(bookService.findIdByIsbn("0-306-40615-2")).isEqualTo(OptionalLong.of(1L));
+		Assertions.assertThatThrownBy( () -> bookService.findIdByIsbn("0-306-40615-3") )
+			.isInstanceOf(BusinessException.class)
+			.hasMessage("Isbn inválido.");
+	}
+	
 	private Book createValidBook() {
 		return Book.builder().isbn("123").title("Meu Livro").author("Lucas").build();
 	}
 	
+	private DataIntegrityViolationException constraintViolation(String constraintName) {
+		return new DataIntegrityViolationException("could not execute statement",
+				new ConstraintViolationException("could not execute statement", new SQLException("duplicated", "23505"), constraintName));
+	}
+	
 }
@@ -0,0 +1,158 @@
+package com.lucassilva.libraryapi.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lucassilva.libraryapi.api.repository.BookRepository;
+import com.lucassilva.libraryapi.exception.BusinessException;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class IsbnIndexTest {
+
+	@Autowired
+	BookService bookService;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	@DisplayName("Deve encontrar pelo isbn, sem consultar a base, os livros gravados e deixar de encontrar os removidos")
+	public void isbnIndexFollowsWritesTest() {
+
+		//cenário
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		// desligadas por padrão em application.properties
+		statistics.setStatisticsEnabled(true);
+		Book book = bookService.save(createBook("978-0-306-40615-7"));
+
+		//execução
+		long statements = statistics.getPrepareStatementCount();
+		OptionalLong byIsbn10 = bookService.findIdByIsbn("0306406152");
+		OptionalLong absent = bookService.findIdByIsbn("978-3-16-148410-0");
+
+		//verificações
+		assertThat(byIsbn10).isEqualTo(OptionalLong.of(book.getId()));
+		assertThat(absent).isEmpty();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+
+		//execução
+		bookService.patch(book.getId(), Book.builder().title("Novas Aventuras").build(), null);
+		book = bookService.getById(book.getId()).get();
+		book.setIsbn("9783161484100");
+		bookService.update(book);
+
+		//verificações
+		assertThat(bookService.findIdByIsbn("0306406152")).isEmpty();
+		assertThat(bookService.findIdByIsbn("978-3-16-148410-0")).isEqualTo(OptionalLong.of(book.getId()));
+
+		//execução
+		bookService.deleteById(book.getId());
+
+		//verificações
+		assertThat(bookService.findIdByIsbn("9783161484100")).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve indexar os livros importados em lote e ignorar os de uma transação desfeita")
+	public void isbnIndexBatchAndRollbackTest() {
+
+		//cenário
+		Book imported = bookService.saveAll(Arrays.asList(createBook("0-8044-2957-X"), createBook("i-102"))).get(0);
+
+		//execução
+		transactionTemplate.executeWithoutResult( status -> {
+			bookRepository.save(createBook("979-10-90636-07-1"));
+			bookRepository.flush();
+			status.setRollbackOnly();
+		});
+
+		//verificações
+		assertThat(bookService.findIdByIsbn("9780804429573")).isEqualTo(OptionalLong.of(imported.getId()));
+		assertThat(bookService.saveAll(Arrays.asList(createBook("i-102"))).get(0)).isNull();
+		assertThat(bookService.findIdByIsbn("9791090636071")).isEmpty();
+
+		//execução
+		bookService.delete(imported);
+
+		//verificações
+		assertThat(bookService.findIdByIsbn("080442957X")).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve gravar o isbn na forma canônica e recusar o mesmo ISBN em outra formatação")
+	public void canonicalIsbnTest() {
+
+		//cenário
+		Book book = bookService.save(createBook("978-85-333-0227-3"));
+
+		//execução
+		Throwable exception = catchThrowable( () -> bookService.save(createBook("9788533302273")) );
+		List<Book> imported = bookService.saveAll(Arrays.asList(createBook("978 85 333 0227 3"), createBook("8533302274")));
+
+		//verificações
+		assertThat(book.getIsbn()).isEqualTo("9788533302273");
+		assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Isbn já cadastrado.");
+		assertThat(imported).containsOnlyNulls();
+		assertThat(bookService.find(Book.builder().isbn("85-333-0227-4").build(), PageRequest.of(0, 10)))
+			.extracting(Book::getId)
+			.containsExactly(book.getId());
+	}
+
+	@Test
+	@DisplayName("Deve recusar no lote o isbn gravado sem passar pelo índice, gravando os demais livros")
+	public void saveAllDuplicateBehindIndexTest() {
+
+		//cenário
+		// gravado por outra instância: nem o índice nem o filtro de isbns desta o conhecem
+		jdbcTemplate.update("insert into book (id, title, author, isbn, version, last_modified) values (?, ?, ?, ?, 0, current_timestamp)",
+				900_001L, "1984", "George Orwell", "9780451524935");
+
+		//execução
+		List<Book> imported = bookService.saveAll(Arrays.asList(
+				createBook("978-0-451-52493-5"), createBook("978-0-14-044913-6"), createBook("i-301")));
+
+		//verificações
+		assertThat(imported.get(0)).isNull();
+		assertThat(imported.get(1).getId()).isNotNull();
+		assertThat(imported.get(2).getId()).isNotNull();
+		assertThat(bookService.findIdByIsbn("9780140449136")).isEqualTo(OptionalLong.of(imported.get(1).getId()));
+		assertThat(bookRepository.findExistingIsbns(Arrays.asList("9780451524935", "9780140449136", "i-301")))
+			.containsExactlyInAnyOrder("9780451524935", "9780140449136", "i-301");
+	}
+
+	private Book createBook(String isbn) {
+		return Book.builder().title("Aventuras").author("Fulano").isbn(isbn).build();
+	}
+
+}
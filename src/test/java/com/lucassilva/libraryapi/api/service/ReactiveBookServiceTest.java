@@ -0,0 +1,60 @@
+package com.lucassilva.libraryapi.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.lucassilva.libraryapi.api.repository.ReactiveBookRepository;
+import com.lucassilva.libraryapi.api.service.impl.ReactiveBookServiceImpl;
+import com.lucassilva.libraryapi.exception.BusinessException;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ReactiveBookServiceTest {
+
+	ReactiveBookService bookService;
+	
+	@MockBean
+	ReactiveBookRepository bookRepository;
+	
+	@BeforeEach
+	public void setup() {
+		this.bookService = new ReactiveBookServiceImpl(bookRepository);
+	}
+	
+	@Test
+	@DisplayName("Deve lançar erro de negócio apenas quando a violação for a do isbn único")
+	public void saveIntegrityViolationTest() {
+		
+		//cenário
+		Book duplicated = Book.builder().title("Aventuras").author("Fulano").isbn("123").build();
+		Book other = Book.builder().title("Aventuras").author("Fulano").isbn("456").build();
+		Mockito.when(bookRepository.insert(duplicated)).thenReturn(Mono.error(new DataIntegrityViolationException("insert",
+				new IllegalStateException("Unique index or primary key violation: \"PUBLIC.UK_BOOK_ISBN_INDEX_2 ON PUBLIC.BOOK(ISBN)\""))));
+		Mockito.when(bookRepository.insert(other)).thenReturn(Mono.error(new DataIntegrityViolationException("insert",
+				new IllegalStateException("NULL not allowed for column \"TITLE\""))));
+		
+		//execução / verificações
+		StepVerifier.create(bookService.save(duplicated))
+			.expectErrorSatisfies( e -> assertThat(e)
+					.isInstanceOf(BusinessException.class)
+					.hasMessage("Isbn já cadastrado.") )
+			.verify();
+		StepVerifier.create(bookService.save(other))
+			.expectError(DataIntegrityViolationException.class)
+			.verify();
+	}
+	
+}
@@ -0,0 +1,58 @@
+package com.lucassilva.libraryapi.api.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class LongLongHashMapTest {
+
+	@Test
+	@DisplayName("Deve se comportar como um HashMap em inserções, substituições e remoções aleatórias")
+	public void randomOperationsTest() {
+
+		//cenário
+		LongLongHashMap map = new LongLongHashMap(4);
+		Map<Long, Long> expected = new HashMap<>();
+		Random random = new Random(42);
+
+		//execução / verificações
+		for (int i = 0; i < 200_000; i++) {
+			// chaves em um intervalo pequeno para forçar colisões e remoções de chaves presentes
+			long key = 1 + random.nextInt(5_000);
+			if(random.nextInt(3) == 0) {
+				assertThat(map.remove(key)).isEqualTo(expected.getOrDefault(key, 0L));
+				expected.remove(key);
+			} else {
+				long value = 1 + random.nextInt(1_000_000);
+				assertThat(map.put(key, value)).isEqualTo(expected.getOrDefault(key, 0L));
+				expected.put(key, value);
+			}
+		}
+
+		assertThat(map.size()).isEqualTo(expected.size());
+		for (long key = 1; key <= 5_000; key++) {
+			assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, 0L));
+		}
+	}
+
+	@Test
+	@DisplayName("Não deve aceitar zero como chave ou valor")
+	public void zeroIsReservedTest() {
+
+		//cenário
+		LongLongHashMap map = new LongLongHashMap(16);
+
+		//execução / verificações
+		assertThatThrownBy( () -> map.put(0, 1) ).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy( () -> map.put(1, 0) ).isInstanceOf(IllegalArgumentException.class);
+		assertThat(map.get(0)).isZero();
+		assertThat(map.remove(0)).isZero();
+	}
+
+}
@@ -0,0 +1,265 @@
+package com.lucassilva.libraryapi.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.lucassilva.libraryapi.api.service.BookService;
+import com.lucassilva.libraryapi.api.service.impl.BookServiceImpl;
+import com.lucassilva.libraryapi.model.entity.Book;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"spring.datasource.url=" + ReplicaRoutingDataSourceTest.PRIMARY_URL,
+		"library.datasource.replicas.enabled=true",
+		"library.datasource.replicas.urls=" + ReplicaRoutingDataSourceTest.REPLICA_1_URL + "," + ReplicaRoutingDataSourceTest.REPLICA_2_URL
+				+ "," + ReplicaRoutingDataSourceTest.DEAD_REPLICA_URL,
+		"library.datasource.replicas.connection-timeout-ms=250",
+		"library.datasource.replicas.lag-query=select lag_ms from replica_lag",
+		"library.datasource.replicas.max-lag-ms=1000",
+		"library.datasource.replicas.check-interval-ms=3600000",
+		"library.datasource.replicas.read-your-writes.window-ms=60000",
+		"spring.transaction.default-timeout=30s"
+})
+public class ReplicaRoutingDataSourceTest {
+
+	static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+	static final String REPLICA_1_URL = "jdbc:h2:mem:routing-replica-1;DB_CLOSE_DELAY=-1";
+	static final String REPLICA_2_URL = "jdbc:h2:mem:routing-replica-2;DB_CLOSE_DELAY=-1";
+	// nenhum servidor escuta nesta porta: a réplica recusa todas as conexões
+	static final String DEAD_REPLICA_URL = "jdbc:h2:tcp://localhost:1/mem:routing-dead";
+
+	static JdbcTemplate replica1;
+	static JdbcTemplate replica2;
+
+	@Autowired
+	BookService bookService;
+
+	@Autowired
+	ReplicaRoutingDataSource routingDataSource;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	/**
+	 * As réplicas são bases H2 independentes com o mesmo esquema do primário;
+	 * a "replicação" é feita pelo teste, inserindo as linhas em cada uma.
+	 */
+	@BeforeAll
+	public static void createReplicas() {
+		replica1 = createReplica(REPLICA_1_URL);
+		replica2 = createReplica(REPLICA_2_URL);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+		replica1.update("update replica_lag set lag_ms = 0");
+		replica2.update("update replica_lag set lag_ms = 0");
+		routingDataSource.checkReplicas();
+	}
+
+	@Test
+	@DisplayName("Deve aplicar as propriedades spring.transaction ao gerenciador de transações das réplicas")
+	public void transactionManagerPropertiesTest() {
+
+		//verificações
+		assertThat(transactionManager).isInstanceOf(ReplicaAwareJpaTransactionManager.class);
+		assertThat(((ReplicaAwareJpaTransactionManager) transactionManager).getDefaultTimeout()).isEqualTo(30);
+	}
+
+	@Test
+	@DisplayName("Deve ler das réplicas em rodízio e gravar no primário")
+	public void readsGoToReplicasTest() {
+
+		//cenário
+		asClient("10.0.0.1");
+		Book book = bookService.save(createBook("r-101"));
+		asClient("10.0.0.2");
+
+		//execução / verificações
+		assertThat(read(book)).isEmpty();
+
+		replicate(replica1, book, "Na Réplica 1");
+		replicate(replica2, book, "Na Réplica 2");
+
+		assertThat(IntStream.range(0, 4)
+				.mapToObj( i -> read(book).get().getTitle() )
+				.collect(Collectors.toSet()))
+			.containsExactlyInAnyOrder("Na Réplica 1", "Na Réplica 2");
+	}
+
+	@Test
+	@DisplayName("Deve ler do primário enquanto o cliente que gravou estiver na janela de read-your-writes")
+	public void readYourWritesTest() {
+
+		//cenário
+		asClient("10.0.0.1");
+		Book book = bookService.save(createBook("r-201"));
+
+		//execução
+		Optional<Book> writer = read(book);
+		asClient("10.0.0.2");
+		Optional<Book> other = read(book);
+
+		//verificações
+		assertThat(writer).map(Book::getTitle).contains("Aventuras");
+		assertThat(other).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve ler do primário quando as réplicas estão atrasadas ou falham na verificação")
+	public void replicaFallbackTest() {
+
+		//cenário
+		asClient("10.0.0.1");
+		Book book = bookService.save(createBook("r-301"));
+		asClient("10.0.0.2");
+		replica1.update("update replica_lag set lag_ms = 5000");
+		replica2.execute("drop table replica_lag");
+
+		try {
+			//execução
+			routingDataSource.checkReplicas();
+
+			//verificações
+			assertThat(routingDataSource.getReplicas()).extracting(ReplicaRoutingDataSource.Replica::isAvailable).containsOnly(false);
+			assertThat(routingDataSource.getReplicas()).extracting(ReplicaRoutingDataSource.Replica::getLagMs).containsExactly(5000L, -1L, -1L);
+			assertThat(read(book)).map(Book::getTitle).contains("Aventuras");
+		} finally {
+			createLagTable(replica2);
+		}
+
+		//execução
+		replica1.update("update replica_lag set lag_ms = 0");
+		routingDataSource.checkReplicas();
+
+		//verificações
+		assertThat(routingDataSource.getReplicas()).extracting(ReplicaRoutingDataSource.Replica::isAvailable).containsExactly(true, true, false);
+		assertThat(read(book)).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve tirar do rodízio, sem esperar o timeout do primário, a réplica que recusa conexões")
+	public void deadReplicaTest() {
+
+		//cenário
+		asClient("10.0.0.1");
+		Book book = bookService.save(createBook("r-501"));
+		asClient("10.0.0.2");
+		replicate(replica1, book, "Na Réplica");
+		replicate(replica2, book, "Na Réplica");
+		long start = System.nanoTime();
+
+		//execução
+		routingDataSource.checkReplicas();
+		List<String> titles = IntStream.range(0, 6)
+				.mapToObj( i -> read(book).get().getTitle() )
+				.collect(Collectors.toList());
+
+		//verificações
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+		assertThat(titles).containsOnly("Na Réplica");
+		assertThat(routingDataSource.getReplicas().get(2))
+			.extracting(ReplicaRoutingDataSource.Replica::isAvailable, ReplicaRoutingDataSource.Replica::getLagMs)
+			.containsExactly(false, -1L);
+	}
+
+	@Test
+	@DisplayName("Deve popular os caches só com o que foi lido do primário")
+	public void cachesLoadFromPrimaryTest() {
+
+		//cenário
+		asClient("10.0.0.1");
+		Book book = bookService.save(createBook("r-401"));
+		asClient("10.0.0.2");
+		replicate(replica1, book, "Desatualizado");
+		replicate(replica2, book, "Desatualizado");
+		entityManagerFactory.getCache().evictAll();
+
+		//execução
+		Optional<Book> fromReplica = read(book);
+
+		//verificações
+		assertThat(fromReplica).map(Book::getTitle).contains("Desatualizado");
+		assertThat(entityManagerFactory.getCache().contains(Book.class, book.getId())).isFalse();
+
+		//execução
+		Optional<Book> cached = bookService.getById(book.getId());
+
+		//verificações
+		assertThat(cached).map(Book::getTitle).contains("Aventuras");
+		assertThat(entityManagerFactory.getCache().contains(Book.class, book.getId())).isTrue();
+		assertThat(cacheManager.getCache(BookServiceImpl.BOOKS_CACHE).get(book.getId(), Book.class))
+			.extracting(Book::getTitle)
+			.isEqualTo("Aventuras");
+		assertThat(read(book)).map(Book::getTitle).contains("Desatualizado");
+		assertThat(bookService.getById(book.getId())).map(Book::getTitle).contains("Aventuras");
+	}
+
+	private static JdbcTemplate createReplica(String url) {
+		Flyway.configure().dataSource(url, "sa", "").load().migrate();
+		JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+		createLagTable(replica);
+		return replica;
+	}
+
+	private static void createLagTable(JdbcTemplate replica) {
+		replica.execute("create table replica_lag (lag_ms bigint not null)");
+		replica.update("insert into replica_lag values (0)");
+	}
+
+	private void replicate(JdbcTemplate replica, Book book, String title) {
+		replica.update("insert into book (id, title, author, isbn, version, last_modified) values (?, ?, ?, ?, ?, current_timestamp)",
+				book.getId(), title, book.getAuthor(), book.getIsbn(), book.getVersion());
+	}
+
+	/**
+	 * Leitura somente leitura que não passa pelos caches, e portanto pelas réplicas.
+	 */
+	private Optional<Book> read(Book book) {
+		return Optional.ofNullable(bookService.getAllById(List.of(book.getId())).get(0));
+	}
+
+	private void asClient(String remoteAddr) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRemoteAddr(remoteAddr);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	private Book createBook(String isbn) {
+		return Book.builder().title("Aventuras").author("Fulano").isbn(isbn).build();
+	}
+
+}
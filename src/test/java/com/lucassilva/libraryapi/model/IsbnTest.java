@@ -0,0 +1,43 @@
+package com.lucassilva.libraryapi.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class IsbnTest {
+
+	@Test
+	@DisplayName("Deve converter ISBN-10 e ISBN-13 em qualquer formatação para o mesmo ISBN-13")
+	public void parseTest() {
+
+		//execução / verificações
+		assertThat(Isbn.parse("9780306406157")).isEqualTo(9780306406157L);
+		assertThat(Isbn.parse("978-0-306-40615-7")).isEqualTo(9780306406157L);
+		assertThat(Isbn.parse("0306406152")).isEqualTo(9780306406157L);
+		assertThat(Isbn.parse("0 306 40615 2")).isEqualTo(9780306406157L);
+		assertThat(Isbn.parse("0-8044-2957-X")).isEqualTo(9780804429573L);
+		assertThat(Isbn.parse("080442957x")).isEqualTo(9780804429573L);
+		assertThat(Isbn.parse("979-10-90636-07-1")).isEqualTo(9791090636071L);
+		assertThat(Isbn.format(Isbn.parse("0-306-40615-2"))).isEqualTo("9780306406157");
+	}
+
+	@Test
+	@DisplayName("Deve recusar textos que não são um ISBN válido")
+	public void parseInvalidTest() {
+
+		//execução / verificações
+		assertThat(Isbn.parse(null)).isEqualTo(Isbn.INVALID);
+		assertThat(Isbn.parse("")).isEqualTo(Isbn.INVALID);
+		assertThat(Isbn.parse("123")).isEqualTo(Isbn.INVALID);
+		assertThat(Isbn.parse("9780306406158")).as("dígito de controle").isEqualTo(Isbn.INVALID);
+		assertThat(Isbn.parse("0306406153")).as("dígito de controle").isEqualTo(Isbn.INVALID);
+		assertThat(Isbn.parse("9770306406155")).as("prefixo").isEqualTo(Isbn.INVALID);
+		assertThat(Isbn.parse("X306406152")).isEqualTo(Isbn.INVALID);
+		assertThat(Isbn.parse("978030640615X")).isEqualTo(Isbn.INVALID);
+		assertThat(Isbn.parse("97803064061570")).isEqualTo(Isbn.INVALID);
+		assertThat(Isbn.parse("978/0306406157")).isEqualTo(Isbn.INVALID);
+		assertThat(Isbn.isValid("s-101")).isFalse();
+	}
+
+}